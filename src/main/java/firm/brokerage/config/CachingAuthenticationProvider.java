@@ -0,0 +1,43 @@
+package firm.brokerage.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * Skip the password hash for credentials that passed it moments ago
+ * Only successful checks are remembered, so a wrong password always reaches the delegate.
+ */
+@RequiredArgsConstructor
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+    private final VerifiedCredentialCache credentialCache;
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken) || authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+
+        String username = authentication.getName();
+        String password = authentication.getCredentials().toString();
+        Authentication verified = credentialCache.get(username, password);
+        if (verified != null) {
+            return verified;
+        }
+
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            credentialCache.put(username, password, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
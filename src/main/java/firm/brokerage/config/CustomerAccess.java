@@ -0,0 +1,29 @@
+package firm.brokerage.config;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.Collection;
+
+/**
+ * Decides whether the caller may act on a customer's orders and assets
+ * Admins may act on any customer; a bearer token names its customer as the principal, so a
+ * customer may only act on itself. Used from the controllers' @PreAuthorize expressions.
+ */
+public class CustomerAccess {
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    public boolean isAllowed(Authentication authentication, String customerId) {
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return false;
+        }
+        if (authentication.getAuthorities().stream().anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()))) {
+            return true;
+        }
+        return customerId != null && customerId.equals(authentication.getName());
+    }
+
+    public boolean isAllowed(Authentication authentication, Collection<String> customerIds) {
+        return customerIds.stream().allMatch(customerId -> isAllowed(authentication, customerId));
+    }
+}
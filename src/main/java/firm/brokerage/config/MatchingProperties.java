@@ -0,0 +1,35 @@
+package firm.brokerage.config;
+
+import firm.brokerage.matching.FixedPoint;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Matching settings bound from brokerage.matching.*
+ */
+@Component
+@ConfigurationProperties(prefix = "brokerage.matching")
+@Data
+public class MatchingProperties {
+
+    /**
+     * Decimals of order sizes in a book unless configured per asset
+     */
+    private int defaultQuantityScale = FixedPoint.MAX_SCALE;
+
+    /**
+     * Decimals of order sizes per asset, e.g. 0 for assets traded in whole units
+     */
+    private Map<String, Integer> quantityScales = new HashMap<>();
+
+    /**
+     * Quantity scale used for the book of an asset
+     */
+    public int quantityScale(String assetName) {
+        return quantityScales.getOrDefault(assetName, defaultQuantityScale);
+    }
+}
@@ -1,9 +1,16 @@
 package firm.brokerage.config;
 
+import firm.brokerage.service.AuthService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -11,9 +18,11 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
+@EnableMethodSecurity
 public class SecurityConfig {
 
     /**
@@ -38,10 +47,48 @@ public class SecurityConfig {
         return new InMemoryUserDetailsManager(admin);
     }
 
+    /**
+     * Customers may only reach their own orders and assets
+     */
+    @Bean
+    public CustomerAccess customerAccess() {
+        return new CustomerAccess();
+    }
+
+    /**
+     * Successful password checks remembered for a short while
+     */
+    @Bean
+    public VerifiedCredentialCache verifiedCredentialCache(
+            @Value("${brokerage.auth.credential-cache.max-size:10000}") int maxSize,
+            @Value("${brokerage.auth.credential-cache.ttl-ms:60000}") long ttlMillis) {
+        return new VerifiedCredentialCache(maxSize, ttlMillis);
+    }
+
+    /**
+     * HTTP Basic checks each request's password with BCrypt; repeated credentials hit the cache instead
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(UserDetailsService userDetailsService,
+                                                       PasswordEncoder passwordEncoder,
+                                                       VerifiedCredentialCache verifiedCredentialCache) {
+        DaoAuthenticationProvider passwordCheck = new DaoAuthenticationProvider();
+        passwordCheck.setUserDetailsService(userDetailsService);
+        passwordCheck.setPasswordEncoder(passwordEncoder);
+        return new ProviderManager(new CachingAuthenticationProvider(passwordCheck, verifiedCredentialCache));
+    }
+
+    /**
+     * Customers call the API with the bearer token from login; HTTP Basic is kept for the admin user
+     */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AuthService authService,
+                                           AuthenticationManager authenticationManager) throws Exception {
         http
+                .authenticationManager(authenticationManager)
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new TokenAuthenticationFilter(authService), BasicAuthenticationFilter.class)
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/h2-console/**").permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
@@ -0,0 +1,56 @@
+package firm.brokerage.config;
+
+import firm.brokerage.exception.InvalidCredentialsException;
+import firm.brokerage.service.AuthService;
+import firm.brokerage.service.TokenClaims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticate API calls that carry a bearer token issued on login or registration
+ * Requests without one fall through to the other authentication mechanisms; an invalid
+ * or expired token leaves the request unauthenticated.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AuthService authService;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(BEARER_PREFIX)) {
+            try {
+                TokenClaims claims = authService.verifyToken(header.substring(BEARER_PREFIX.length()).trim());
+                UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                        claims.getCustomerId(), null,
+                        claims.getRoles().stream().map(role -> new SimpleGrantedAuthority("ROLE_" + role)).toList());
+
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            } catch (InvalidCredentialsException e) {
+                log.debug("Rejected bearer token: {}", e.getMessage());
+                SecurityContextHolder.clearContext();
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,98 @@
+package firm.brokerage.config;
+
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Short-lived memory of username and password pairs that passed a full password check
+ * Entries are keyed by a salted SHA-256 digest, so neither the password nor a plain hash of it
+ * is kept; the salt is random per process. Only the in-memory admin user authenticates this
+ * way and its password cannot change while the process runs, so entries are never evicted
+ * early; they expire after the TTL only.
+ */
+public class VerifiedCredentialCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final byte[] salt = new byte[16];
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public VerifiedCredentialCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, System::nanoTime);
+    }
+
+    VerifiedCredentialCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Credential cache size and TTL must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        new SecureRandom().nextBytes(salt);
+    }
+
+    /**
+     * The authentication of an earlier successful check of exactly these credentials, or null
+     */
+    public Authentication get(String username, String password) {
+        String key = keyOf(username, password);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.authentication;
+    }
+
+    public void put(String username, String password, Authentication authentication) {
+        if (ttlNanos == 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            long now = clock.getAsLong();
+            entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(keyOf(username, password), new Entry(authentication, clock.getAsLong() + ttlNanos));
+    }
+
+    // Private helper methods
+
+    private String keyOf(String username, String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(salt);
+            digest.update(username.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Entry {
+        final Authentication authentication;
+        final long expiresAt;
+
+        Entry(Authentication authentication, long expiresAt) {
+            this.authentication = authentication;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
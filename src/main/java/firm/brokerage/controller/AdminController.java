@@ -2,16 +2,26 @@ package firm.brokerage.controller;
 
 import firm.brokerage.dto.MatchOrderRequest;
 import firm.brokerage.dto.OrderResponse;
+import firm.brokerage.dto.SweepResponse;
+import firm.brokerage.dto.TradePageResponse;
 import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.matching.SweepResult;
+import firm.brokerage.service.ExportService;
 import firm.brokerage.service.MatchingService;
 import firm.brokerage.service.OrderService;
+import firm.brokerage.service.TradePage;
+import firm.brokerage.service.TradeService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -27,6 +37,8 @@ public class AdminController {
 
     private final MatchingService matchingService;
     private final OrderService orderService;
+    private final ExportService exportService;
+    private final TradeService tradeService;
 
     /**
      * Match a pending order
@@ -43,7 +55,65 @@ public class AdminController {
     }
 
     /**
-     * Get all pending orders (for admin review)
+     * Stream all orders, or one customer's, as newline-delimited JSON
+     * GET /api/admin/export/orders?customerId=CUST001
+     */
+    @GetMapping(value = "/export/orders", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) String customerId) {
+        log.info("Admin exporting orders{}", customerId == null ? "" : " of customer " + customerId);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> exportService.exportOrders(customerId, out));
+    }
+
+    /**
+     * Stream all assets, or one customer's, as newline-delimited JSON
+     * GET /api/admin/export/assets?customerId=CUST001
+     */
+    @GetMapping(value = "/export/assets", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAssets(@RequestParam(required = false) String customerId) {
+        log.info("Admin exporting assets{}", customerId == null ? "" : " of customer " + customerId);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> exportService.exportAssets(customerId, out));
+    }
+
+    /**
+     * Cross all open orders of an asset in one pass and settle every resulting trade
+     * POST /api/admin/assets/{assetName}/sweep
+     */
+    @PostMapping("/assets/{assetName}/sweep")
+    public ResponseEntity<SweepResponse> sweep(@PathVariable String assetName) {
+        log.info("Admin sweeping {} book", assetName);
+
+        SweepResult result = matchingService.sweep(assetName);
+
+        return ResponseEntity.ok(SweepResponse.fromResult(result));
+    }
+
+    /**
+     * Page through the trades of an asset in a time range, oldest first
+     * GET /api/admin/trades?assetName=AAPL&startDate=2025-01-15T00:00:00&endDate=2025-01-16T00:00:00&limit=100&cursor=...
+     */
+    @GetMapping("/trades")
+    public ResponseEntity<TradePageResponse> listTrades(
+            @RequestParam String assetName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit) {
+
+        log.debug("Admin listing {} trades from {} to {}", assetName, startDate, endDate);
+
+        TradePage page = tradeService.listTrades(assetName, startDate, endDate, cursor, limit);
+
+        return ResponseEntity.ok(TradePageResponse.fromPage(page));
+    }
+
+    /**
+     * Get all pending and partially filled orders (for admin review)
      * GET /api/admin/pending-orders
      */
     @GetMapping("/pending-orders")
@@ -6,13 +6,14 @@ import firm.brokerage.service.AssetService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 /**
  * Controller for asset management operations
- * Handles listing customer assets
+ * Handles listing customer assets; a customer may only read its own
  */
 @RestController
 @RequestMapping("/api/assets")
@@ -27,6 +28,7 @@ public class AssetController {
      * GET /api/assets?customerId=CUST001
      */
     @GetMapping
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
     public ResponseEntity<List<AssetResponse>> listAssets(@RequestParam String customerId) {
         log.info("Listing assets for customer: {}", customerId);
 
@@ -43,6 +45,7 @@ public class AssetController {
      * GET /api/assets/{assetName}?customerId=CUST001
      */
     @GetMapping("/{assetName}")
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
     public ResponseEntity<AssetResponse> getAsset(
             @PathVariable String assetName,
             @RequestParam String customerId) {
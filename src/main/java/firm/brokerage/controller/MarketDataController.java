@@ -0,0 +1,84 @@
+package firm.brokerage.controller;
+
+import firm.brokerage.dto.MarketDataEvent;
+import firm.brokerage.service.MarketDataService;
+import firm.brokerage.service.MatchingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Controller for market data
+ * Streams best bid/ask and depth changes of an asset as Server-Sent Events
+ */
+@RestController
+@RequestMapping("/api/market-data")
+@RequiredArgsConstructor
+@Slf4j
+public class MarketDataController {
+
+    private static final String EVENT_ID_SEPARATOR = ":";
+
+    private final MarketDataService marketDataService;
+    private final MatchingService matchingService;
+
+    /**
+     * Stream an asset's market data: a snapshot (or the missed deltas), then every delta
+     * Each event's id is its epoch and sequence as epoch:sequence; pass the last ones seen as epoch
+     * and afterSequence, or let the browser send the id as Last-Event-ID, to resume without a new
+     * snapshot. Unknown assets are rejected with 404.
+     * GET /api/market-data/AAPL/stream?epoch=5f3a9c&afterSequence=42
+     */
+    @GetMapping(value = "/{assetName}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@PathVariable String assetName,
+                             @RequestParam(required = false) String epoch,
+                             @RequestParam(required = false) Long afterSequence,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String resumeEpoch = epoch;
+        Long resumeAfter = afterSequence;
+        if (resumeAfter == null && lastEventId != null) {
+            int separator = lastEventId.lastIndexOf(EVENT_ID_SEPARATOR);
+            resumeEpoch = separator < 0 ? null : lastEventId.substring(0, separator);
+            resumeAfter = separator < 0 ? null : parseSequence(lastEventId.substring(separator + 1));
+        }
+        log.debug("Streaming {} market data after epoch {} sequence {}", assetName, resumeEpoch, resumeAfter);
+
+        matchingService.openMarketData(assetName);
+
+        SseEmitter emitter = new SseEmitter(marketDataService.getStreamTimeoutMs());
+        Runnable unsubscribe = marketDataService.subscribe(assetName, resumeEpoch, resumeAfter,
+                event -> send(emitter, event));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
+    // Private helper methods
+
+    private static Long parseSequence(String sequence) {
+        try {
+            return Long.valueOf(sequence);
+        } catch (NumberFormatException e) {
+            // Not an id this server sent; start from a snapshot
+            return null;
+        }
+    }
+
+    private static void send(SseEmitter emitter, MarketDataEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(event.getEpoch() + EVENT_ID_SEPARATOR + event.getSequence())
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
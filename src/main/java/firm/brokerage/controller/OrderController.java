@@ -1,23 +1,39 @@
 package firm.brokerage.controller;
 
+import firm.brokerage.dto.BatchOrderRequest;
+import firm.brokerage.dto.BatchOrderResponse;
+import firm.brokerage.dto.BatchOrderResult;
+import firm.brokerage.dto.CancelOrdersResponse;
 import firm.brokerage.dto.CreateOrderRequest;
+import firm.brokerage.dto.OrderEvent;
+import firm.brokerage.dto.OrderPageResponse;
 import firm.brokerage.dto.OrderResponse;
 import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.service.OrderEventService;
+import firm.brokerage.service.OrderPage;
 import firm.brokerage.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Controller for order management operations
- * Handles order creation, listing, and cancellation
+ * Handles order creation, listing, cancellation and order status streams
+ * A customer may only act on its own orders; admins on anyone's.
  */
 @RestController
 @RequestMapping("/api/orders")
@@ -26,12 +42,14 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final OrderEventService orderEventService;
 
     /**
      * Create a new order
      * POST /api/orders
      */
     @PostMapping
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #request.customerId)")
     public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
         log.info("Creating order for customer: {}", request.getCustomerId());
 
@@ -41,11 +59,26 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    /**
+     * Create a batch of orders, reporting acceptance or rejection per order
+     * POST /api/orders/batch
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #request.orders.![customerId])")
+    public ResponseEntity<BatchOrderResponse> createOrders(@Valid @RequestBody BatchOrderRequest request) {
+        log.info("Creating batch of {} orders", request.getOrders().size());
+
+        List<BatchOrderResult> results = orderService.createOrders(request.getOrders());
+
+        return ResponseEntity.ok(BatchOrderResponse.fromResults(results));
+    }
+
     /**
      * List orders for a customer
      * GET /api/orders?customerId=CUST001
      */
     @GetMapping
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
     public ResponseEntity<List<OrderResponse>> listOrders(
             @RequestParam String customerId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
@@ -67,11 +100,51 @@ public class OrderController {
         return ResponseEntity.ok(responses);
     }
 
+    /**
+     * Page through a customer's order history, newest first
+     * GET /api/orders/history?customerId=CUST001&limit=50&status=FILLED&assetName=AAPL&cursor=...
+     */
+    @GetMapping("/history")
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
+    public ResponseEntity<OrderPageResponse> listOrderHistory(
+            @RequestParam String customerId,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String assetName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+
+        log.debug("Listing order history for customer: {}", customerId);
+
+        OrderPage page = orderService.listOrders(customerId, status, assetName, cursor, limit);
+
+        return ResponseEntity.ok(OrderPageResponse.fromPage(page));
+    }
+
+    /**
+     * Stream a customer's order status changes: a snapshot of the open orders, then every update
+     * A client that falls too far behind gets a new snapshot instead of the updates it missed.
+     * Only the token's own customer (or the admin) may subscribe.
+     * GET /api/orders/events?customerId=CUST001
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
+    public SseEmitter streamOrderEvents(@RequestParam String customerId) {
+        log.debug("Streaming order events for customer: {}", customerId);
+
+        SseEmitter emitter = new SseEmitter(orderEventService.getStreamTimeoutMs());
+        Runnable unsubscribe = orderEventService.subscribe(customerId, event -> send(emitter, event));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unsubscribe.run());
+        return emitter;
+    }
+
     /**
      * Cancel (delete) a pending order
      * DELETE /api/orders/{orderId}?customerId=CUST001
      */
     @DeleteMapping("/{orderId}")
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
     public ResponseEntity<Void> cancelOrder(
             @PathVariable String orderId,
             @RequestParam String customerId) {
@@ -83,11 +156,29 @@ public class OrderController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Cancel all open orders of a customer, optionally only for one asset
+     * DELETE /api/orders?customerId=CUST001&assetName=AAPL
+     */
+    @DeleteMapping
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
+    public ResponseEntity<CancelOrdersResponse> cancelOrders(
+            @RequestParam String customerId,
+            @RequestParam(required = false) String assetName) {
+
+        log.info("Canceling open orders for customer {}", customerId);
+
+        List<String> canceledOrderIds = orderService.cancelOrders(customerId, assetName);
+
+        return ResponseEntity.ok(CancelOrdersResponse.of(canceledOrderIds));
+    }
+
     /**
      * Get specific order details
      * GET /api/orders/{orderId}?customerId=CUST001
      */
     @GetMapping("/{orderId}")
+    @PreAuthorize("@customerAccess.isAllowed(authentication, #customerId)")
     public ResponseEntity<OrderResponse> getOrder(
             @PathVariable String orderId,
             @RequestParam String customerId) {
@@ -99,4 +190,16 @@ public class OrderController {
 
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    // Private helper methods
+
+    private static void send(SseEmitter emitter, OrderEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package firm.brokerage.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderRequest {
+
+    @NotEmpty(message = "At least one order is required")
+    @Size(max = 1000, message = "A batch can hold at most 1000 orders")
+    private List<@Valid CreateOrderRequest> orders;
+}
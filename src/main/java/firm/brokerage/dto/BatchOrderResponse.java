@@ -0,0 +1,22 @@
+package firm.brokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResponse {
+    private int acceptedCount;
+    private int rejectedCount;
+    private List<BatchOrderResult> results;
+
+    // Static factory method for easy conversion
+    public static BatchOrderResponse fromResults(List<BatchOrderResult> results) {
+        int accepted = (int) results.stream().filter(BatchOrderResult::isAccepted).count();
+        return new BatchOrderResponse(accepted, results.size() - accepted, results);
+    }
+}
@@ -0,0 +1,26 @@
+package firm.brokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one order of a batch, by its position in the request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResult {
+    private int index;
+    private boolean accepted;
+    private OrderResponse order;
+    private String error;
+
+    public static BatchOrderResult accepted(int index, OrderResponse order) {
+        return new BatchOrderResult(index, true, order, null);
+    }
+
+    public static BatchOrderResult rejected(int index, String error) {
+        return new BatchOrderResult(index, false, null, error);
+    }
+}
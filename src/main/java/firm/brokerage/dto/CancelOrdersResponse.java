@@ -0,0 +1,20 @@
+package firm.brokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CancelOrdersResponse {
+    private int canceledCount;
+    private List<String> canceledOrderIds;
+
+    // Static factory method for easy conversion
+    public static CancelOrdersResponse of(List<String> canceledOrderIds) {
+        return new CancelOrdersResponse(canceledOrderIds.size(), canceledOrderIds);
+    }
+}
@@ -0,0 +1,18 @@
+package firm.brokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Total resting size at one price; a size of zero removes the level
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DepthLevel {
+    private BigDecimal price;
+    private BigDecimal size;
+}
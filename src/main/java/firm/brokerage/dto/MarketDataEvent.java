@@ -0,0 +1,34 @@
+package firm.brokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Market data of one asset at a sequence number
+ * A SNAPSHOT carries every level of the published depth; a DELTA only the levels that changed
+ * since the previous sequence. Best bid and ask are null while a side is empty. Sequences restart
+ * with every epoch, i.e. every time the application starts.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketDataEvent {
+
+    public enum Type {
+        SNAPSHOT,
+        DELTA
+    }
+
+    private String assetName;
+    private String epoch;
+    private long sequence;
+    private Type type;
+    private BigDecimal bestBid;
+    private BigDecimal bestAsk;
+    private List<DepthLevel> bids;
+    private List<DepthLevel> asks;
+}
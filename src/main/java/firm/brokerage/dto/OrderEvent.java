@@ -0,0 +1,26 @@
+package firm.brokerage.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Order state pushed to a customer
+ * A SNAPSHOT lists every open order of the customer; orders missing from it are closed.
+ * An UPDATE carries the new state of one order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEvent {
+
+    public enum Type {
+        SNAPSHOT,
+        UPDATE
+    }
+
+    private Type type;
+    private List<OrderResponse> orders;
+}
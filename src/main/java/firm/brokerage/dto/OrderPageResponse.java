@@ -0,0 +1,24 @@
+package firm.brokerage.dto;
+
+import firm.brokerage.service.OrderPage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    private List<OrderResponse> orders;
+    private String nextCursor;
+
+    // Static factory method for easy conversion
+    public static OrderPageResponse fromPage(OrderPage page) {
+        return new OrderPageResponse(
+                page.getOrders().stream().map(OrderResponse::fromEntity).toList(),
+                page.getNextCursor()
+        );
+    }
+}
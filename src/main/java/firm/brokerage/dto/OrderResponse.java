@@ -18,6 +18,8 @@ public class OrderResponse {
     private String assetName;
     private OrderSide orderSide;
     private BigDecimal size;
+    private BigDecimal filledSize;
+    private BigDecimal remainingSize;
     private BigDecimal price;
     private BigDecimal totalValue;
     private OrderStatus status;
@@ -31,6 +33,8 @@ public class OrderResponse {
                 order.getAssetName(),
                 order.getOrderSide(),
                 order.getSize(),
+                order.getFilledSize(),
+                order.getRemainingSize(),
                 order.getPrice(),
                 order.getTotalValue(),
                 order.getStatus(),
@@ -0,0 +1,23 @@
+package firm.brokerage.dto;
+
+import firm.brokerage.matching.SweepResult;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweepResponse {
+    private String assetName;
+    private int tradeCount;
+    private List<OrderResponse> filledOrders;
+
+    // Static factory method for easy conversion
+    public static SweepResponse fromResult(SweepResult result) {
+        return new SweepResponse(result.getAssetName(), result.getTradeCount(),
+                result.getFilledOrders().stream().map(OrderResponse::fromEntity).toList());
+    }
+}
@@ -0,0 +1,24 @@
+package firm.brokerage.dto;
+
+import firm.brokerage.service.TradePage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradePageResponse {
+    private List<TradeResponse> trades;
+    private String nextCursor;
+
+    // Static factory method for easy conversion
+    public static TradePageResponse fromPage(TradePage page) {
+        return new TradePageResponse(
+                page.getTrades().stream().map(TradeResponse::fromEntity).toList(),
+                page.getNextCursor()
+        );
+    }
+}
@@ -0,0 +1,38 @@
+package firm.brokerage.dto;
+
+import firm.brokerage.entity.IdGenerator;
+import firm.brokerage.entity.TradeEntity;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeResponse {
+    private String tradeId;
+    private long sequence;
+    private String assetName;
+    private String buyOrderId;
+    private String sellOrderId;
+    private BigDecimal price;
+    private BigDecimal size;
+    private LocalDateTime tradeDate;
+
+    // Static factory method for easy conversion; the ID also goes out as a string, as 64-bit numbers lose precision in JSON clients
+    public static TradeResponse fromEntity(TradeEntity trade) {
+        return new TradeResponse(
+                IdGenerator.format(trade.getTradeId()),
+                trade.getTradeId(),
+                trade.getAssetName(),
+                trade.getBuyOrderId(),
+                trade.getSellOrderId(),
+                trade.getPrice(),
+                trade.getSize(),
+                trade.getTradeDate()
+        );
+    }
+}
@@ -41,6 +41,11 @@ public class AssetEntity {
     @PositiveOrZero(message = "Usable size must be positive or zero")
     private BigDecimal usableSize;
 
+    // Optimistic lock: an update of a row changed since it was read fails instead of overwriting it
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * Constructor for creating new asset
      */
@@ -143,6 +148,27 @@ public class AssetEntity {
                 amount, assetName, customerId, size);
     }
 
+    /**
+     * Remove a reserved amount from the holding (settles a reservation)
+     * Usable size is unchanged since it was already reduced on reserve
+     */
+    public void consumeReserved(BigDecimal amount) {
+        validatePositiveAmount(amount, "Consume amount must be positive");
+
+        BigDecimal reserved = getReservedAmount();
+        if (reserved.compareTo(amount) < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Cannot consume more than reserved amount. Required: %s, Reserved: %s",
+                            amount, reserved)
+            );
+        }
+
+        this.size = size.subtract(amount);
+
+        log.debug("Consumed {} reserved {} for customer {}, total size now: {}",
+                amount, assetName, customerId, size);
+    }
+
     /**
      * Check if sufficient usable amount exists
      */
@@ -0,0 +1,29 @@
+package firm.brokerage.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last journal sequence applied to the database for one asset
+ * Written in the same transaction as the command's effects, so replay can skip what is already applied.
+ * Commands of one asset run in sequence order on one thread, so a per-asset high-water mark is exact.
+ */
+@Entity
+@Table(name = "journal_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalCheckpointEntity {
+
+    @Id
+    @Column(name = "asset_name")
+    private String assetName;
+
+    @Column(name = "last_sequence", nullable = false)
+    private long lastSequence;
+}
@@ -3,24 +3,36 @@ package firm.brokerage.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 /**
  * Order entity representing trading orders
  * Contains business logic for order state transitions
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_create_date", columnList = "customer_id, create_date, order_id"),
+        @Index(name = "idx_orders_customer_status_create_date", columnList = "customer_id, status, create_date"),
+        @Index(name = "idx_orders_status_create_date", columnList = "status, create_date"),
+        @Index(name = "idx_orders_asset_status_create_date", columnList = "asset_name, status, create_date"),
+        @Index(name = "idx_orders_create_date", columnList = "create_date")
+})
 @Data
 @NoArgsConstructor
 @Slf4j
-public class OrderEntity {
+public class OrderEntity implements Persistable<String> {
 
     @Id
     @Column(name = "order_id")
@@ -44,6 +56,11 @@ public class OrderEntity {
     @Positive(message = "Size must be positive")
     private BigDecimal size;
 
+    @Column(name = "filled_size", nullable = false, precision = 19, scale = 2)
+    @NotNull(message = "Filled size cannot be null")
+    @PositiveOrZero(message = "Filled size must be positive or zero")
+    private BigDecimal filledSize = BigDecimal.ZERO;
+
     @Column(name = "price", nullable = false, precision = 19, scale = 2)
     @NotNull(message = "Price cannot be null")
     @Positive(message = "Price must be positive")
@@ -58,22 +75,44 @@ public class OrderEntity {
     @NotNull(message = "Create date cannot be null")
     private LocalDateTime createDate;
 
+    // Set only for orders created here, so save() inserts them without selecting the ID first
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newOrder;
+
     /**
-     * Constructor for creating new order
+     * Constructor for creating new order with a time-ordered ID
      */
     public OrderEntity(String customerId,
                        String assetName,
                        OrderSide orderSide,
                        BigDecimal size,
                        BigDecimal price) {
-        this.orderId = UUID.randomUUID().toString();
+        this(IdGenerator.DEFAULT.nextIdString(), customerId, assetName, orderSide, size, price, LocalDateTime.now());
+        this.newOrder = true;
+    }
+
+    /**
+     * Constructor for re-creating an order with a known ID and create date (journal replay)
+     */
+    public OrderEntity(String orderId,
+                       String customerId,
+                       String assetName,
+                       OrderSide orderSide,
+                       BigDecimal size,
+                       BigDecimal price,
+                       LocalDateTime createDate) {
+        this.orderId = orderId;
         this.customerId = customerId;
         this.assetName = assetName;
         this.orderSide = orderSide;
         this.size = size;
         this.price = price;
         this.status = OrderStatus.PENDING;
-        this.createDate = LocalDateTime.now();
+        this.createDate = createDate;
 
         validateOrder();
 
@@ -84,46 +123,85 @@ public class OrderEntity {
     // Business Methods
 
     /**
-     * Cancel the order if it's in PENDING status
+     * Cancel the order if it's PENDING or PARTIALLY_FILLED
+     * Only the remaining size is canceled; filled size stays executed
      */
     public void cancel() {
-        if (status != OrderStatus.PENDING) {
+        if (!isOpen()) {
             throw new IllegalStateException(
-                    String.format("Cannot cancel order %s with status %s. Only PENDING orders can be canceled.",
+                    String.format("Cannot cancel order %s with status %s. Only PENDING or PARTIALLY_FILLED orders can be canceled.",
                             orderId, status)
             );
         }
         this.status = OrderStatus.CANCELED;
-        log.info("Order {} canceled for customer {}", orderId, customerId);
+        log.info("Order {} canceled for customer {} with {} of {} filled", orderId, customerId, filledSize, size);
     }
 
     /**
-     * Match the order (change status to MATCHED)
+     * Match the remaining size of the order (change status to MATCHED)
      */
     public void match() {
-        if (status != OrderStatus.PENDING) {
+        if (!isOpen()) {
             throw new IllegalStateException(
-                    String.format("Cannot match order %s with status %s. Only PENDING orders can be matched.",
+                    String.format("Cannot match order %s with status %s. Only PENDING or PARTIALLY_FILLED orders can be matched.",
                             orderId, status)
             );
         }
-        this.status = OrderStatus.MATCHED;
         log.info("Order {} matched for customer {} - {} {} at {}",
-                orderId, customerId, size, assetName, price);
+                orderId, customerId, getRemainingSize(), assetName, price);
+        this.filledSize = size;
+        this.status = OrderStatus.MATCHED;
+    }
+
+    /**
+     * Execute part or all of the remaining size
+     * Status becomes PARTIALLY_FILLED, or FILLED once nothing remains
+     */
+    public void fill(BigDecimal fillSize) {
+        if (!isOpen()) {
+            throw new IllegalStateException(
+                    String.format("Cannot fill order %s with status %s. Only PENDING or PARTIALLY_FILLED orders can be filled.",
+                            orderId, status)
+            );
+        }
+        if (fillSize == null || fillSize.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Fill size must be positive");
+        }
+        if (fillSize.compareTo(getRemainingSize()) > 0) {
+            throw new IllegalArgumentException(
+                    String.format("Fill size %s exceeds remaining size %s of order %s",
+                            fillSize, getRemainingSize(), orderId)
+            );
+        }
+
+        this.filledSize = filledSize.add(fillSize);
+        this.status = getRemainingSize().compareTo(BigDecimal.ZERO) == 0
+                ? OrderStatus.FILLED
+                : OrderStatus.PARTIALLY_FILLED;
+
+        log.info("Order {} filled {} {} at {} for customer {}, status now: {}",
+                orderId, fillSize, assetName, price, customerId, status);
     }
 
     /**
      * Check if order can be canceled
      */
     public boolean canBeCanceled() {
-        return status == OrderStatus.PENDING;
+        return isOpen();
     }
 
     /**
      * Check if order can be matched
      */
     public boolean canBeMatched() {
-        return status == OrderStatus.PENDING;
+        return isOpen();
+    }
+
+    /**
+     * Size not yet executed (size - filled size)
+     */
+    public BigDecimal getRemainingSize() {
+        return size.subtract(filledSize);
     }
 
     /**
@@ -161,6 +239,20 @@ public class OrderEntity {
         return status == OrderStatus.PENDING;
     }
 
+    /**
+     * Check if this order is still working (PENDING or PARTIALLY_FILLED)
+     */
+    public boolean isOpen() {
+        return status == OrderStatus.PENDING || status == OrderStatus.PARTIALLY_FILLED;
+    }
+
+    /**
+     * Check if this order is completely filled
+     */
+    public boolean isFilled() {
+        return status == OrderStatus.FILLED;
+    }
+
     /**
      * Check if this order is matched
      */
@@ -175,6 +267,25 @@ public class OrderEntity {
         return status == OrderStatus.CANCELED;
     }
 
+    @Override
+    public String getId() {
+        return orderId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newOrder;
+    }
+
+    /**
+     * Mark the order as stored, e.g. after it was inserted outside the persistence context
+     */
+    @PostLoad
+    @PostPersist
+    public void markPersisted() {
+        this.newOrder = false;
+    }
+
     // Validation
     private void validateOrder() {
         if (customerId == null || customerId.trim().isEmpty()) {
@@ -1,7 +1,16 @@
 package firm.brokerage.entity;
 
+import java.util.Set;
+
 public enum OrderStatus {
     PENDING,
+    PARTIALLY_FILLED,
+    FILLED,
     MATCHED,
-    CANCELED
+    CANCELED;
+
+    /**
+     * Statuses of orders still working in the book
+     */
+    public static final Set<OrderStatus> OPEN = Set.of(PENDING, PARTIALLY_FILLED);
 }
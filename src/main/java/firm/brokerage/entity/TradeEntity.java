@@ -0,0 +1,76 @@
+package firm.brokerage.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Trade entity: one execution between a buy and a sell order
+ * Written once by matching and never changed. The ID comes from {@link IdGenerator}, so it
+ * increases with execution time and doubles as the trade sequence number.
+ */
+@Entity
+@Table(name = "trades", indexes = {
+        @Index(name = "idx_trades_asset_trade_date", columnList = "asset_name, trade_date, trade_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeEntity {
+
+    @Id
+    @Column(name = "trade_id")
+    private Long tradeId;
+
+    @Column(name = "asset_name", nullable = false)
+    @NotNull(message = "Asset name cannot be null")
+    private String assetName;
+
+    @Column(name = "buy_order_id", nullable = false)
+    @NotNull(message = "Buy order ID cannot be null")
+    private String buyOrderId;
+
+    @Column(name = "sell_order_id", nullable = false)
+    @NotNull(message = "Sell order ID cannot be null")
+    private String sellOrderId;
+
+    @Column(name = "price", nullable = false, precision = 19, scale = 2)
+    @NotNull(message = "Price cannot be null")
+    @Positive(message = "Price must be positive")
+    private BigDecimal price;
+
+    @Column(name = "size", nullable = false, precision = 19, scale = 2)
+    @NotNull(message = "Size cannot be null")
+    @Positive(message = "Size must be positive")
+    private BigDecimal size;
+
+    @Column(name = "trade_date", nullable = false)
+    @NotNull(message = "Trade date cannot be null")
+    private LocalDateTime tradeDate;
+
+    /**
+     * Constructor for recording a new execution
+     */
+    public TradeEntity(String assetName,
+                       String buyOrderId,
+                       String sellOrderId,
+                       BigDecimal price,
+                       BigDecimal size) {
+        this(IdGenerator.DEFAULT.nextId(), assetName, buyOrderId, sellOrderId, price, size, LocalDateTime.now());
+    }
+
+    /**
+     * Trade between an order and the counter-order it executed against, at the given price and size
+     */
+    public static TradeEntity between(OrderEntity order, OrderEntity counterOrder, BigDecimal price, BigDecimal size) {
+        return order.isBuyOrder()
+                ? new TradeEntity(order.getAssetName(), order.getOrderId(), counterOrder.getOrderId(), price, size)
+                : new TradeEntity(order.getAssetName(), counterOrder.getOrderId(), order.getOrderId(), price, size);
+    }
+}
@@ -3,6 +3,7 @@ package firm.brokerage.exception;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -65,6 +66,14 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.CONFLICT, "DUPLICATE_CUSTOMER", ex.getMessage());
     }
 
+    @ExceptionHandler(CannotAcquireLockException.class)
+    public ResponseEntity<ErrorResponse> handleLockNotAcquired(CannotAcquireLockException ex) {
+        // Only reaches here once the sequencer has run out of retries
+        log.warn("Customer lock busy: {}", ex.getMessage());
+        return createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, "CUSTOMER_BUSY",
+                "The customer is busy with other orders, please retry");
+    }
+
     // Authentication & Authorization Exceptions
 
     @ExceptionHandler(InvalidCredentialsException.class)
@@ -0,0 +1,30 @@
+package firm.brokerage.journal;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Binary encoding of values shared by journal entries and snapshots
+ */
+final class BinaryFormat {
+
+    private BinaryFormat() {
+    }
+
+    static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeByte(value.scale());
+        out.writeByte(unscaled.length);
+        out.write(unscaled);
+    }
+
+    static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        int scale = in.readByte();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+}
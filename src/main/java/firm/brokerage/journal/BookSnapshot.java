@@ -0,0 +1,96 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.entity.OrderStatus;
+import lombok.Value;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Order books and customer balances as of one journal sequence
+ * The books are stored as the open orders of every asset in arrival order,
+ * which is exactly what a book is loaded from.
+ */
+@Value
+public class BookSnapshot {
+
+    private static final int MAGIC = 0x42534E50;
+    private static final int VERSION = 1;
+
+    long sequence;
+    List<AssetEntity> balances;
+    List<OrderEntity> openOrders;
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(sequence);
+
+        out.writeInt(balances.size());
+        for (AssetEntity asset : balances) {
+            out.writeUTF(asset.getCustomerId());
+            out.writeUTF(asset.getAssetName());
+            BinaryFormat.writeDecimal(out, asset.getSize());
+            BinaryFormat.writeDecimal(out, asset.getUsableSize());
+        }
+
+        out.writeInt(openOrders.size());
+        for (OrderEntity order : openOrders) {
+            out.writeUTF(order.getOrderId());
+            out.writeUTF(order.getCustomerId());
+            out.writeUTF(order.getAssetName());
+            out.writeByte(order.getOrderSide().ordinal());
+            BinaryFormat.writeDecimal(out, order.getSize());
+            BinaryFormat.writeDecimal(out, order.getFilledSize());
+            BinaryFormat.writeDecimal(out, order.getPrice());
+            out.writeByte(order.getStatus().ordinal());
+            out.writeUTF(order.getCreateDate().toString());
+        }
+    }
+
+    static BookSnapshot readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Not a book snapshot or unsupported version");
+        }
+        long sequence = in.readLong();
+
+        int balanceCount = in.readInt();
+        List<AssetEntity> balances = new ArrayList<>(balanceCount);
+        for (int i = 0; i < balanceCount; i++) {
+            String customerId = in.readUTF();
+            String assetName = in.readUTF();
+            BigDecimal size = BinaryFormat.readDecimal(in);
+            BigDecimal usableSize = BinaryFormat.readDecimal(in);
+            balances.add(new AssetEntity(customerId, assetName, size, usableSize));
+        }
+
+        int orderCount = in.readInt();
+        List<OrderEntity> openOrders = new ArrayList<>(orderCount);
+        for (int i = 0; i < orderCount; i++) {
+            String orderId = in.readUTF();
+            String customerId = in.readUTF();
+            String assetName = in.readUTF();
+            OrderSide orderSide = OrderSide.values()[in.readByte()];
+            BigDecimal size = BinaryFormat.readDecimal(in);
+            BigDecimal filledSize = BinaryFormat.readDecimal(in);
+            BigDecimal price = BinaryFormat.readDecimal(in);
+            OrderStatus status = OrderStatus.values()[in.readByte()];
+            LocalDateTime createDate = LocalDateTime.parse(in.readUTF());
+
+            OrderEntity order = new OrderEntity(orderId, customerId, assetName, orderSide, size, price, createDate);
+            order.setFilledSize(filledSize);
+            order.setStatus(status);
+            openOrders.add(order);
+        }
+
+        return new BookSnapshot(sequence, balances, openOrders);
+    }
+}
@@ -0,0 +1,337 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.repository.JournalCheckpointRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of order commands
+ * Entries go into memory-mapped segment files named after their first sequence. Appending
+ * is a memory copy; a flusher thread forces the segment to disk in groups, and callers that
+ * need durability wait until the flusher has passed their sequence.
+ * Record layout: payload length (int), CRC32 of the payload (int), payload. A zero length
+ * marks the end of a segment; a torn record at the tail fails its checksum and is ignored.
+ * Numbering continues after the highest sequence on disk or checkpointed in the database,
+ * since checkpoints commit before the group flush and may outlive a tail lost in a crash.
+ */
+@Component
+@Slf4j
+public class CommandJournal {
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_SIZE = 8;
+
+    @Getter
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final LongSupplier checkpointedSequence;
+
+    private final Object durableMonitor = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private Thread flusher;
+    private volatile boolean running;
+
+    @Getter
+    private volatile long lastSequence;
+    private volatile long durableSequence;
+
+    @Autowired
+    public CommandJournal(JournalCheckpointRepository checkpointRepository,
+                          @Value("${brokerage.journal.enabled:false}") boolean enabled,
+                          @Value("${brokerage.journal.directory:./data/journal}") String directory,
+                          @Value("${brokerage.journal.segment-size:67108864}") int segmentSize,
+                          @Value("${brokerage.journal.flush-interval-ms:2}") long flushIntervalMs) {
+        this(enabled, directory, segmentSize, flushIntervalMs, checkpointRepository::findMaxLastSequence);
+    }
+
+    CommandJournal(boolean enabled, String directory, int segmentSize, long flushIntervalMs,
+                   LongSupplier checkpointedSequence) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.checkpointedSequence = checkpointedSequence;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal directory " + directory, e);
+        }
+
+        // Continue numbering after whatever is on disk or checkpointed; appends always start a new segment
+        List<JournalEntry> existing = readEntries();
+        long lastOnDisk = existing.isEmpty() ? 0 : existing.get(existing.size() - 1).getSequence();
+        long lastCheckpointed = checkpointedSequence.getAsLong();
+        if (lastCheckpointed > lastOnDisk) {
+            log.warn("Journal ends at sequence {} but checkpoints reach {}; the unflushed tail was lost",
+                    lastOnDisk, lastCheckpointed);
+        }
+        lastSequence = Math.max(lastOnDisk, lastCheckpointed);
+        durableSequence = lastSequence;
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        log.info("Opened command journal in {} at sequence {}", directory, lastSequence);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (!enabled || !running) {
+            return;
+        }
+
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            forceSegment();
+            closeChannel();
+        }
+        log.info("Closed command journal at sequence {}", lastSequence);
+    }
+
+    /**
+     * Append an entry and return its sequence
+     * The entry is in the page cache when this returns; use {@link #awaitDurable(long)} for disk.
+     */
+    public synchronized long append(JournalEntry entry) {
+        if (!running) {
+            throw new IllegalStateException("Command journal is not open");
+        }
+
+        long sequence = lastSequence + 1;
+        byte[] payload = entry.encode(sequence);
+        int recordSize = HEADER_SIZE + payload.length;
+
+        if (segment == null || segment.remaining() < recordSize + Integer.BYTES) {
+            rollSegment(sequence, recordSize);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segment.putInt(payload.length);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Block until every entry up to the given sequence is forced to disk
+     */
+    public void awaitDurable(long sequence) {
+        if (!enabled || durableSequence >= sequence) {
+            return;
+        }
+
+        LockSupport.unpark(flusher);
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence) {
+                if (!running) {
+                    throw new IllegalStateException("Command journal closed before sequence " + sequence + " was flushed");
+                }
+                try {
+                    durableMonitor.wait(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for journal flush", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read all valid entries from every segment, in sequence order
+     */
+    public List<JournalEntry> readEntries() {
+        return readEntries(0);
+    }
+
+    /**
+     * Read the valid entries after a sequence, skipping segments that end before it
+     */
+    public List<JournalEntry> readEntries(long afterSequence) {
+        List<Path> paths = segmentPaths();
+        List<JournalEntry> entries = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            if (i + 1 < paths.size() && firstSequence(paths.get(i + 1)) <= afterSequence + 1) {
+                continue;
+            }
+            readSegment(paths.get(i), entries);
+        }
+        entries.removeIf(entry -> entry.getSequence() <= afterSequence);
+        return entries;
+    }
+
+    /**
+     * Delete segments whose entries are all at or below a sequence covered by a snapshot
+     * The segment being appended to is never deleted.
+     */
+    public synchronized void deleteSegmentsBefore(long sequence) {
+        List<Path> paths = segmentPaths();
+        for (int i = 0; i + 1 < paths.size(); i++) {
+            if (firstSequence(paths.get(i + 1)) > sequence + 1) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(paths.get(i));
+                log.debug("Deleted journal segment {}", paths.get(i).getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}", paths.get(i), e);
+            }
+        }
+    }
+
+    // Private helper methods
+
+    private void flushLoop() {
+        while (running) {
+            long target;
+            MappedByteBuffer current;
+            synchronized (this) {
+                target = lastSequence;
+                current = segment;
+            }
+
+            if (target > durableSequence && current != null) {
+                current.force();
+                durableSequence = target;
+                synchronized (durableMonitor) {
+                    durableMonitor.notifyAll();
+                }
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+        }
+    }
+
+    private void rollSegment(long firstSequence, int recordSize) {
+        if (recordSize + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("Journal entry of " + recordSize + " bytes exceeds segment size " + segmentSize);
+        }
+
+        // Everything in the old segment must be on disk before it is released
+        forceSegment();
+        closeChannel();
+
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SEGMENT_SUFFIX));
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create journal segment " + path, e);
+        }
+        log.debug("Started journal segment {}", path.getFileName());
+    }
+
+    private void forceSegment() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close journal segment", e);
+        }
+        channel = null;
+        segment = null;
+    }
+
+    private static long firstSequence(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private List<Path> segmentPaths() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list journal directory " + directory, e);
+        }
+    }
+
+    private void readSegment(Path path, List<JournalEntry> entries) {
+        try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+
+            while (buffer.remaining() >= HEADER_SIZE) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                CRC32 crc = new CRC32();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Ignoring torn journal record in {} at offset {}", path.getFileName(), buffer.position() - HEADER_SIZE);
+                    break;
+                }
+
+                entries.add(JournalEntry.decode(payload));
+                buffer.position(buffer.position() + length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read journal segment " + path, e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package firm.brokerage.journal;
+
+/**
+ * Order commands recorded in the journal
+ */
+public enum JournalCommandType {
+    CREATE,
+    CANCEL,
+    MATCH,
+    SWEEP,
+    ABORT
+}
@@ -0,0 +1,145 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import lombok.Value;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+
+/**
+ * One order command as written to the journal
+ * Create entries carry everything needed to re-create the order with its original ID;
+ * cancel and match entries only identify the order; sweep entries only name the asset.
+ * An abort entry names the sequence of an entry whose transaction rolled back.
+ */
+@Value
+public class JournalEntry {
+
+    long sequence;
+    JournalCommandType type;
+    String orderId;
+    String customerId;
+    String assetName;
+    OrderSide orderSide;
+    BigDecimal size;
+    BigDecimal price;
+    LocalDateTime createDate;
+    long abortedSequence;
+
+    public JournalEntry(long sequence, JournalCommandType type, String orderId, String customerId, String assetName,
+                        OrderSide orderSide, BigDecimal size, BigDecimal price, LocalDateTime createDate) {
+        this(sequence, type, orderId, customerId, assetName, orderSide, size, price, createDate, 0);
+    }
+
+    private JournalEntry(long sequence, JournalCommandType type, String orderId, String customerId, String assetName,
+                         OrderSide orderSide, BigDecimal size, BigDecimal price, LocalDateTime createDate,
+                         long abortedSequence) {
+        this.sequence = sequence;
+        this.type = type;
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.assetName = assetName;
+        this.orderSide = orderSide;
+        this.size = size;
+        this.price = price;
+        this.createDate = createDate;
+        this.abortedSequence = abortedSequence;
+    }
+
+    public static JournalEntry create(OrderEntity order) {
+        return new JournalEntry(0, JournalCommandType.CREATE, order.getOrderId(), order.getCustomerId(),
+                order.getAssetName(), order.getOrderSide(), order.getSize(), order.getPrice(), order.getCreateDate());
+    }
+
+    public static JournalEntry cancel(OrderEntity order) {
+        return new JournalEntry(0, JournalCommandType.CANCEL, order.getOrderId(), order.getCustomerId(),
+                order.getAssetName(), null, null, null, null);
+    }
+
+    public static JournalEntry match(OrderEntity order) {
+        return new JournalEntry(0, JournalCommandType.MATCH, order.getOrderId(), order.getCustomerId(),
+                order.getAssetName(), null, null, null, null);
+    }
+
+    public static JournalEntry sweep(String assetName) {
+        return new JournalEntry(0, JournalCommandType.SWEEP, "", "", assetName, null, null, null, null);
+    }
+
+    /**
+     * Entry that voids an appended entry whose transaction did not commit
+     */
+    public static JournalEntry abort(JournalEntry aborted, long abortedSequence) {
+        return new JournalEntry(0, JournalCommandType.ABORT, aborted.getOrderId(), aborted.getCustomerId(),
+                aborted.getAssetName(), null, null, null, null, abortedSequence);
+    }
+
+    /**
+     * Re-create the order of a create entry
+     */
+    public OrderEntity toOrder() {
+        if (type != JournalCommandType.CREATE) {
+            throw new IllegalStateException("Only create entries carry an order, got " + type);
+        }
+        return new OrderEntity(orderId, customerId, assetName, orderSide, size, price, createDate);
+    }
+
+    /**
+     * Binary form of the entry under the given sequence
+     */
+    byte[] encode(long sequence) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(sequence);
+            out.writeByte(type.ordinal());
+            out.writeUTF(orderId);
+            out.writeUTF(customerId);
+            out.writeUTF(assetName);
+            if (type == JournalCommandType.CREATE) {
+                out.writeByte(orderSide.ordinal());
+                BinaryFormat.writeDecimal(out, size);
+                BinaryFormat.writeDecimal(out, price);
+                out.writeUTF(createDate.toString());
+            } else if (type == JournalCommandType.ABORT) {
+                out.writeLong(abortedSequence);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static JournalEntry decode(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            long sequence = in.readLong();
+            JournalCommandType type = JournalCommandType.values()[in.readByte()];
+            String orderId = in.readUTF();
+            String customerId = in.readUTF();
+            String assetName = in.readUTF();
+            if (type == JournalCommandType.ABORT) {
+                return new JournalEntry(sequence, type, orderId, customerId, assetName, null, null, null, null, in.readLong());
+            }
+            if (type != JournalCommandType.CREATE) {
+                return new JournalEntry(sequence, type, orderId, customerId, assetName, null, null, null, null);
+            }
+
+            OrderSide orderSide = OrderSide.values()[in.readByte()];
+            BigDecimal size = BinaryFormat.readDecimal(in);
+            BigDecimal price = BinaryFormat.readDecimal(in);
+            LocalDateTime createDate = LocalDateTime.parse(in.readUTF());
+            return new JournalEntry(sequence, type, orderId, customerId, assetName, orderSide, size, price, createDate);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.exception.AssetNotFoundException;
+import firm.brokerage.exception.InsufficientFundsException;
+import firm.brokerage.exception.InvalidOrderStatusException;
+import firm.brokerage.exception.OrderNotFoundException;
+import firm.brokerage.service.JournalService;
+import firm.brokerage.service.MatchingService;
+import firm.brokerage.service.OrderService;
+import firm.brokerage.service.SnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Replay journaled commands the database has not applied yet
+ * Each entry is re-run through the same handler on the asset's
+ * sequencer, so books and balances end up as they were; entries at or below the asset's
+ * checkpoint and entries voided by a later abort entry are skipped. An entry rejected by a
+ * business rule is skipped as the original command would have been; any other failure stops
+ * startup, since books and balances would otherwise start out diverged.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class JournalRecovery implements CommandLineRunner {
+
+    // Rejections a command can meet in any state; everything else is a recovery bug or corruption
+    private static final List<Class<? extends RuntimeException>> EXPECTED_REJECTIONS = List.of(
+            InsufficientFundsException.class, InvalidOrderStatusException.class,
+            OrderNotFoundException.class, AssetNotFoundException.class);
+
+    private final CommandJournal commandJournal;
+    private final JournalService journalService;
+    private final OrderService orderService;
+    private final MatchingService matchingService;
+    private final SnapshotService snapshotService;
+
+    @Override
+    public void run(String... args) {
+        if (!commandJournal.isEnabled()) {
+            return;
+        }
+
+        Map<String, Long> checkpoints = journalService.getCheckpoints();
+        List<JournalEntry> entries = commandJournal.readEntries();
+        // An abort always follows the entry it voids, so it is read whenever that entry is
+        Set<Long> aborted = entries.stream()
+                .filter(entry -> entry.getType() == JournalCommandType.ABORT)
+                .map(JournalEntry::getAbortedSequence)
+                .collect(Collectors.toSet());
+        log.info("Recovering from command journal: {} entries, {} aborted, checkpoints {}",
+                entries.size(), aborted.size(), checkpoints);
+
+        int replayed = 0;
+        int failed = 0;
+        for (JournalEntry entry : entries) {
+            if (entry.getType() == JournalCommandType.ABORT || aborted.contains(entry.getSequence())
+                    || entry.getSequence() <= checkpoints.getOrDefault(entry.getAssetName(), 0L)) {
+                continue;
+            }
+
+            try {
+                replay(entry);
+                replayed++;
+            } catch (RuntimeException e) {
+                if (EXPECTED_REJECTIONS.stream().noneMatch(type -> type.isInstance(e))) {
+                    throw new IllegalStateException(String.format("Journal recovery failed at entry %d (%s of order %s)",
+                            entry.getSequence(), entry.getType(), entry.getOrderId()), e);
+                }
+                // Rejected now as it would have been then, e.g. its transaction never committed
+                log.warn("Skipping journal entry {} ({} of order {}): {}",
+                        entry.getSequence(), entry.getType(), entry.getOrderId(), e.getMessage());
+                failed++;
+            }
+        }
+
+        log.info("Journal recovery completed: {} replayed, {} skipped as rejected", replayed, failed);
+        snapshotService.markRecovered();
+    }
+
+    private void replay(JournalEntry entry) {
+        switch (entry.getType()) {
+            case CREATE -> orderService.replayCreate(entry);
+            case CANCEL -> orderService.replayCancel(entry);
+            case MATCH -> matchingService.replayMatch(entry);
+            case SWEEP -> matchingService.replaySweep(entry);
+            case ABORT -> throw new IllegalStateException("Abort entries are not replayed");
+        }
+    }
+}
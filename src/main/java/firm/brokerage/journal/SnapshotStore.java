@@ -0,0 +1,132 @@
+package firm.brokerage.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot files named after their journal sequence
+ * A snapshot is written to a temporary file, forced to disk and then renamed, so a
+ * crash never leaves a half-written snapshot under a real name. The file ends with a
+ * CRC32 of its contents; a snapshot that fails it is skipped in favour of an older one.
+ */
+@Component
+@Slf4j
+public class SnapshotStore {
+
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    private final Path directory;
+    private final int retained;
+
+    public SnapshotStore(@Value("${brokerage.snapshot.directory:./data/snapshots}") String directory,
+                         @Value("${brokerage.snapshot.retained:2}") int retained) {
+        this.directory = Paths.get(directory);
+        this.retained = Math.max(1, retained);
+    }
+
+    /**
+     * Durably write a snapshot and drop the oldest ones beyond the retained count
+     */
+    public void save(BookSnapshot snapshot) {
+        Path target = directory.resolve(String.format("%020d%s", snapshot.getSequence(), SNAPSHOT_SUFFIX));
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                CheckedOutputStream checked = new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)), new CRC32());
+                DataOutputStream out = new DataOutputStream(checked);
+                snapshot.writeTo(out);
+                out.writeLong(checked.getChecksum().getValue());
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + target, e);
+        }
+
+        log.info("Wrote snapshot {} with {} balances and {} open orders",
+                target.getFileName(), snapshot.getBalances().size(), snapshot.getOpenOrders().size());
+        prune();
+    }
+
+    /**
+     * Newest snapshot that reads back intact, for inspection; recovery does not load snapshots
+     */
+    public Optional<BookSnapshot> loadLatest() {
+        List<Path> snapshots = snapshotPaths();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Optional<BookSnapshot> snapshot = load(snapshots.get(i));
+            if (snapshot.isPresent()) {
+                return snapshot;
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Private helper methods
+
+    private Optional<BookSnapshot> load(Path path) {
+        try (DataInputStream raw = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            CheckedInputStream checked = new CheckedInputStream(raw, new CRC32());
+            BookSnapshot snapshot = BookSnapshot.readFrom(new DataInputStream(checked));
+            long expected = checked.getChecksum().getValue();
+            if (raw.readLong() != expected) {
+                log.warn("Ignoring snapshot {} with bad checksum", path.getFileName());
+                return Optional.empty();
+            }
+            return Optional.of(snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot {}: {}", path.getFileName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void prune() {
+        List<Path> snapshots = snapshotPaths();
+        for (int i = 0; i < snapshots.size() - retained; i++) {
+            try {
+                Files.deleteIfExists(snapshots.get(i));
+            } catch (IOException e) {
+                log.warn("Failed to delete old snapshot {}", snapshots.get(i), e);
+            }
+        }
+    }
+
+    private List<Path> snapshotPaths() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list snapshot directory " + directory, e);
+        }
+    }
+}
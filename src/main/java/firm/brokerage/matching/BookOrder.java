@@ -0,0 +1,65 @@
+package firm.brokerage.matching;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import lombok.Getter;
+
+/**
+ * Order resting in an in-memory order book
+ * Holds only what matching needs, as fixed-point units (see {@link FixedPoint});
+ * the OrderEntity stays the record of truth
+ */
+@Getter
+public class BookOrder {
+
+    private final String orderId;
+    private final String customerId;
+    private final OrderSide orderSide;
+    private final long price;
+    private long remainingSize;
+    // Set when matching stopped at a resting order of the same customer
+    private boolean selfTradeCanceled;
+
+    public BookOrder(String orderId, String customerId, OrderSide orderSide, long price, long remainingSize) {
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.orderSide = orderSide;
+        this.price = price;
+        this.remainingSize = remainingSize;
+    }
+
+    /**
+     * Create book entry from an order entity, using its unfilled size
+     */
+    public static BookOrder from(OrderEntity order, int quantityScale) {
+        return new BookOrder(
+                order.getOrderId(),
+                order.getCustomerId(),
+                order.getOrderSide(),
+                FixedPoint.toUnits(order.getPrice(), FixedPoint.PRICE_SCALE),
+                FixedPoint.toUnits(order.getRemainingSize(), quantityScale)
+        );
+    }
+
+    /**
+     * Check if this is a buy order
+     */
+    public boolean isBuyOrder() {
+        return orderSide == OrderSide.BUY;
+    }
+
+    /**
+     * Check if any size is left to fill
+     */
+    public boolean hasRemaining() {
+        return remainingSize > 0;
+    }
+
+    void reduce(long size) {
+        this.remainingSize -= size;
+    }
+
+    void cancelSelfTrade() {
+        this.selfTradeCanceled = true;
+    }
+}
@@ -0,0 +1,83 @@
+package firm.brokerage.matching;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer with many producers and a single consumer
+ * Each slot carries a sequence number: producers claim a position with a CAS on the
+ * tail and publish by advancing the slot sequence; the consumer frees the slot by
+ * moving its sequence one lap ahead. No locks are taken on either side.
+ */
+public class CommandRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only touched by the consumer thread
+    private long head;
+
+    public CommandRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two, got " + capacity);
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Publish an element; returns false if the buffer is full
+     * Safe to call from any thread
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = element;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Take the next element, or null if none is published yet
+     * Must only be called from the single consumer thread
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+
+        E element = (E) slots[index];
+        slots[index] = null;
+        sequences.set(index, head + slots.length);
+        head++;
+        return element;
+    }
+
+    /**
+     * Number of slots
+     */
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,32 @@
+package firm.brokerage.matching;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Execution of an incoming order against a resting order
+ * The price is always the resting order's price; price and size are fixed-point units
+ */
+@Value
+public class Fill {
+    String incomingOrderId;
+    BookOrder restingOrder;
+    long price;
+    long size;
+    int quantityScale;
+
+    /**
+     * Execution price for settlement
+     */
+    public BigDecimal priceAsDecimal() {
+        return FixedPoint.toDecimal(price, FixedPoint.PRICE_SCALE);
+    }
+
+    /**
+     * Executed size for settlement
+     */
+    public BigDecimal sizeAsDecimal() {
+        return FixedPoint.toDecimal(size, quantityScale);
+    }
+}
@@ -0,0 +1,41 @@
+package firm.brokerage.matching;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point amounts as plain longs for the matching core
+ * A value is held as a count of units of 10^-scale, so comparing, adding and filling
+ * in the book is primitive long arithmetic with no allocation. Prices (TRY) use
+ * {@link #PRICE_SCALE}; quantities use the scale configured for their asset. Values are
+ * converted from and to BigDecimal only where they enter and leave the book.
+ */
+public final class FixedPoint {
+
+    /** Scale of prices and TRY amounts */
+    public static final int PRICE_SCALE = 2;
+
+    /** Largest scale the DECIMAL(19,2) columns can hold */
+    public static final int MAX_SCALE = 2;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Units of a value at the given scale; the value must not carry more decimals than that
+     */
+    public static long toUnits(BigDecimal value, int scale) {
+        try {
+            return value.movePointRight(scale).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    String.format("%s does not fit a fixed-point amount with %d decimals", value.toPlainString(), scale));
+        }
+    }
+
+    /**
+     * Value of a number of units at the given scale
+     */
+    public static BigDecimal toDecimal(long units, int scale) {
+        return BigDecimal.valueOf(units, scale);
+    }
+}
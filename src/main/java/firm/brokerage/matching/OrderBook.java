@@ -0,0 +1,186 @@
+package firm.brokerage.matching;
+
+import firm.brokerage.entity.OrderSide;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * In-memory limit order book for a single asset
+ * Bids and asks are kept in sorted price levels, each level a FIFO queue,
+ * so resting orders are matched by best price first and arrival time second.
+ * Prices and sizes are fixed-point longs; sizes use the asset's quantity scale.
+ * Not thread-safe: callers must serialize access to a book.
+ */
+@Slf4j
+public class OrderBook {
+
+    @Getter
+    private final String assetName;
+
+    @Getter
+    private final int quantityScale;
+
+    private final NavigableMap<Long, PriceLevel> bids = new TreeMap<>(Comparator.reverseOrder());
+    private final NavigableMap<Long, PriceLevel> asks = new TreeMap<>();
+    private final Map<String, BookOrder> ordersById = new HashMap<>();
+
+    public OrderBook(String assetName) {
+        this(assetName, FixedPoint.MAX_SCALE);
+    }
+
+    public OrderBook(String assetName, int quantityScale) {
+        if (quantityScale < 0 || quantityScale > FixedPoint.MAX_SCALE) {
+            throw new IllegalArgumentException("Quantity scale of " + assetName + " must be between 0 and "
+                    + FixedPoint.MAX_SCALE + ", got " + quantityScale);
+        }
+        this.assetName = assetName;
+        this.quantityScale = quantityScale;
+    }
+
+    /**
+     * Match an incoming order against the opposite side of the book
+     * Crossing resting orders are filled best price first, then FIFO, until the
+     * incoming order is exhausted; each may be filled partially. The incoming order
+     * is not added to the book, its remaining size is reduced by what was filled.
+     * Self-trade prevention cancels the newest order: on reaching a resting order of
+     * the same customer, matching stops and the incoming order is marked canceled, so
+     * the caller must not rest it. Skipping the resting order instead could leave the
+     * book crossed.
+     */
+    public List<Fill> match(BookOrder incoming) {
+        NavigableMap<Long, PriceLevel> opposite = incoming.isBuyOrder() ? asks : bids;
+        List<Fill> fills = new ArrayList<>();
+
+        Iterator<PriceLevel> levels = opposite.values().iterator();
+        while (incoming.hasRemaining() && !incoming.isSelfTradeCanceled() && levels.hasNext()) {
+            PriceLevel level = levels.next();
+            if (!crosses(incoming, level.getPrice())) {
+                break;
+            }
+
+            Iterator<BookOrder> queue = level.queue().iterator();
+            while (incoming.hasRemaining() && queue.hasNext()) {
+                BookOrder resting = queue.next();
+                if (resting.getCustomerId().equals(incoming.getCustomerId())) {
+                    incoming.cancelSelfTrade();
+                    log.debug("Order {} canceled in {} book to prevent a self-trade with order {}",
+                            incoming.getOrderId(), assetName, resting.getOrderId());
+                    break;
+                }
+
+                long fillSize = Math.min(resting.getRemainingSize(), incoming.getRemainingSize());
+                level.fill(resting, fillSize);
+                incoming.reduce(fillSize);
+                fills.add(new Fill(incoming.getOrderId(), resting, level.getPrice(), fillSize, quantityScale));
+
+                if (!resting.hasRemaining()) {
+                    queue.remove();
+                    ordersById.remove(resting.getOrderId());
+                }
+            }
+
+            if (level.isEmpty()) {
+                levels.remove();
+            }
+        }
+
+        if (!fills.isEmpty()) {
+            log.debug("Order {} filled {} times in {} book, {} remaining",
+                    incoming.getOrderId(), fills.size(), assetName, incoming.getRemainingSize());
+        }
+        return fills;
+    }
+
+    /**
+     * Add an order to the back of its price level
+     */
+    public void add(BookOrder order) {
+        if (ordersById.containsKey(order.getOrderId())) {
+            throw new IllegalArgumentException("Order " + order.getOrderId() + " is already in the book");
+        }
+        sideOf(order).computeIfAbsent(order.getPrice(), PriceLevel::new).add(order);
+        ordersById.put(order.getOrderId(), order);
+    }
+
+    /**
+     * Remove an order from the book
+     */
+    public Optional<BookOrder> remove(String orderId) {
+        BookOrder order = ordersById.remove(orderId);
+        if (order == null) {
+            return Optional.empty();
+        }
+
+        NavigableMap<Long, PriceLevel> side = sideOf(order);
+        PriceLevel level = side.get(order.getPrice());
+        level.remove(order);
+        if (level.isEmpty()) {
+            side.remove(order.getPrice());
+        }
+        return Optional.of(order);
+    }
+
+    /**
+     * Check if the order is resting in the book
+     */
+    public boolean contains(String orderId) {
+        return ordersById.containsKey(orderId);
+    }
+
+    /**
+     * Highest resting buy price
+     */
+    public Optional<BigDecimal> getBestBid() {
+        return bids.isEmpty() ? Optional.empty() : Optional.of(FixedPoint.toDecimal(bids.firstKey(), FixedPoint.PRICE_SCALE));
+    }
+
+    /**
+     * Lowest resting sell price
+     */
+    public Optional<BigDecimal> getBestAsk() {
+        return asks.isEmpty() ? Optional.empty() : Optional.of(FixedPoint.toDecimal(asks.firstKey(), FixedPoint.PRICE_SCALE));
+    }
+
+    /**
+     * Total resting size per price of the best levels of one side, best price first
+     */
+    public Map<Long, Long> depth(OrderSide side, int levels) {
+        Map<Long, Long> depth = new LinkedHashMap<>();
+        for (PriceLevel level : (side == OrderSide.BUY ? bids : asks).values()) {
+            if (depth.size() == levels) {
+                break;
+            }
+            depth.put(level.getPrice(), level.getTotalSize());
+        }
+        return depth;
+    }
+
+    /**
+     * Number of resting orders
+     */
+    public int size() {
+        return ordersById.size();
+    }
+
+    // Private helper methods
+
+    private boolean crosses(BookOrder incoming, long restingPrice) {
+        return incoming.isBuyOrder() ? incoming.getPrice() >= restingPrice : incoming.getPrice() <= restingPrice;
+    }
+
+    private NavigableMap<Long, PriceLevel> sideOf(BookOrder order) {
+        return order.isBuyOrder() ? bids : asks;
+    }
+}
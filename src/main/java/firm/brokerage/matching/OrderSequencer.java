@@ -0,0 +1,319 @@
+package firm.brokerage.matching;
+
+import firm.brokerage.entity.AssetId;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer sequencer for the matching hot path
+ * Assets are spread over a fixed number of shards. Each shard owns one thread that
+ * drains a ring buffer of commands and runs them one at a time, each in its own
+ * transaction, so a book and its orders are only ever mutated by that thread.
+ * Request threads publish a command and wait on its future.
+ * A command whose transaction fails on an optimistic version conflict, or on a customer lock
+ * it had to take out of order, is retried from scratch a few times with a short backoff;
+ * every version conflict is counted per asset.
+ */
+@Component
+@Slf4j
+public class OrderSequencer {
+
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_MILLIS = 20;
+    private static final String CONFLICT_METRIC = "brokerage.sequencer.version.conflicts";
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Shard[] shards;
+
+    public OrderSequencer(PlatformTransactionManager transactionManager, int shardCount, int ringBufferSize) {
+        this(transactionManager, new SimpleMeterRegistry(), shardCount, ringBufferSize, 3);
+    }
+
+    @Autowired
+    public OrderSequencer(PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${brokerage.sequencer.shards:4}") int shardCount,
+                          @Value("${brokerage.sequencer.ring-buffer-size:1024}") int ringBufferSize,
+                          @Value("${brokerage.sequencer.max-attempts:3}") int maxAttempts) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Sequencer needs at least one shard");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Sequencer needs at least one attempt per command");
+        }
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringBufferSize);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        log.info("Started order sequencer with {} shards", shards.length);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("Stopped order sequencer");
+    }
+
+    /**
+     * Run a command on the asset's sequencer thread and wait for its result
+     * Exceptions thrown by the command are rethrown to the caller unchanged.
+     */
+    public <T> T execute(String assetName, Supplier<T> command) {
+        try {
+            return submit(assetName, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Publish a command to the asset's sequencer thread
+     * A command submitted from that same thread runs inline to avoid waiting on itself.
+     */
+    public <T> CompletableFuture<T> submit(String assetName, Supplier<T> command) {
+        Shard shard = shardFor(assetName);
+        SequencedCommand<T> sequencedCommand = new SequencedCommand<>(this, command);
+
+        if (Thread.currentThread() == shard.thread) {
+            sequencedCommand.run();
+        } else {
+            shard.publish(sequencedCommand);
+        }
+        return sequencedCommand.future;
+    }
+
+    /**
+     * Run an action while every shard is paused between commands
+     * Everything submitted before the call has been applied and committed when the action
+     * runs, and nothing else runs until it returns, so it sees one consistent state.
+     */
+    public void runExclusive(Runnable action) {
+        for (Shard shard : shards) {
+            if (Thread.currentThread() == shard.thread) {
+                throw new IllegalStateException("Cannot pause the sequencer from one of its own threads");
+            }
+        }
+
+        CountDownLatch paused = new CountDownLatch(shards.length);
+        CountDownLatch resumed = new CountDownLatch(1);
+        try {
+            for (Shard shard : shards) {
+                shard.publish(() -> {
+                    paused.countDown();
+                    awaitUninterruptibly(resumed);
+                });
+            }
+            awaitUninterruptibly(paused);
+            action.run();
+        } finally {
+            resumed.countDown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Shard shardFor(String assetName) {
+        return shards[Math.floorMod(assetName.hashCode(), shards.length)];
+    }
+
+    /**
+     * Count a version conflict, tagged with the asset of the row when it is an asset
+     * The customer is only logged; as a tag it would add a time series per customer.
+     */
+    private void recordConflict(OptimisticLockingFailureException conflict, boolean retried) {
+        String customer = "unknown";
+        String asset = "unknown";
+        if (conflict instanceof ObjectOptimisticLockingFailureException objectConflict
+                && objectConflict.getIdentifier() instanceof AssetId assetId) {
+            customer = assetId.getCustomerId();
+            asset = assetId.getAssetName();
+        }
+
+        meterRegistry.counter(CONFLICT_METRIC,
+                "asset", asset, "outcome", retried ? "retried" : "failed").increment();
+        log.debug("Version conflict on {}/{}, {}", customer, asset, retried ? "retrying" : "giving up");
+    }
+
+    private static void backoff(int attempt) {
+        // 1, 2, 4 ... ms plus jitter, capped so a shard never stalls for long
+        long millis = Math.min(MAX_BACKOFF_MILLIS, 1L << Math.min(attempt - 1, 5));
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis + ThreadLocalRandom.current().nextLong(millis + 1)));
+    }
+
+    /**
+     * Command with the future its publisher is waiting on
+     * Runs again in a new transaction after a version conflict, so a command must not carry
+     * state it changed in a rolled back attempt.
+     */
+    private static final class SequencedCommand<T> implements Runnable {
+
+        private final OrderSequencer sequencer;
+        private final Supplier<T> command;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private SequencedCommand(OrderSequencer sequencer, Supplier<T> command) {
+            this.sequencer = sequencer;
+            this.command = command;
+        }
+
+        @Override
+        public void run() {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    future.complete(sequencer.transactionTemplate.execute(status -> command.get()));
+                    return;
+                } catch (OptimisticLockingFailureException | CannotAcquireLockException e) {
+                    boolean retry = attempt < sequencer.maxAttempts;
+                    if (e instanceof OptimisticLockingFailureException conflict) {
+                        sequencer.recordConflict(conflict, retry);
+                    } else {
+                        log.debug("Customer lock busy, {}", retry ? "retrying" : "giving up");
+                    }
+                    if (!retry) {
+                        future.completeExceptionally(e);
+                        return;
+                    }
+                    backoff(attempt);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * One sequencer thread and the ring buffer in front of it
+     */
+    private static final class Shard implements Runnable {
+
+        private final CommandRingBuffer<Runnable> ringBuffer;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile boolean parked;
+
+        private Shard(int index, int ringBufferSize) {
+            this.ringBuffer = new CommandRingBuffer<>(ringBufferSize);
+            this.thread = new Thread(this, "order-sequencer-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void publish(Runnable command) {
+            while (!ringBuffer.offer(command)) {
+                if (!running) {
+                    throw new IllegalStateException("Order sequencer is stopped");
+                }
+                // Buffer full: back off until the sequencer catches up
+                LockSupport.parkNanos(MAX_PARK_NANOS);
+            }
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            int idleSpins = 0;
+            while (running) {
+                Runnable command = ringBuffer.poll();
+                if (command != null) {
+                    command.run();
+                    idleSpins = 0;
+                } else if (idleSpins < SPINS_BEFORE_PARK) {
+                    idleSpins++;
+                    Thread.onSpinWait();
+                } else {
+                    parkUntilPublished();
+                }
+            }
+
+            // Fail whatever commands are still queued so no publisher waits forever;
+            // a pause still runs so the caller of runExclusive is released
+            Runnable command;
+            while ((command = ringBuffer.poll()) != null) {
+                if (command instanceof SequencedCommand<?> sequencedCommand) {
+                    sequencedCommand.future.completeExceptionally(
+                            new IllegalStateException("Order sequencer is stopped"));
+                } else {
+                    command.run();
+                }
+            }
+        }
+
+        private void parkUntilPublished() {
+            parked = true;
+            try {
+                // Re-check after announcing the park so a concurrent publish is not missed
+                Runnable command = ringBuffer.poll();
+                if (command != null) {
+                    command.run();
+                    return;
+                }
+                LockSupport.parkNanos(this, MAX_PARK_NANOS);
+            } finally {
+                parked = false;
+            }
+        }
+    }
+}
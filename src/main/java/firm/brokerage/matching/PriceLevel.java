@@ -0,0 +1,46 @@
+package firm.brokerage.matching;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * All orders resting at one price, kept in arrival (FIFO) order
+ */
+@Getter
+class PriceLevel {
+
+    private final long price;
+    private final Map<String, BookOrder> orders = new LinkedHashMap<>();
+    private long totalSize;
+
+    PriceLevel(long price) {
+        this.price = price;
+    }
+
+    void add(BookOrder order) {
+        orders.put(order.getOrderId(), order);
+        totalSize += order.getRemainingSize();
+    }
+
+    void remove(BookOrder order) {
+        if (orders.remove(order.getOrderId()) != null) {
+            totalSize -= order.getRemainingSize();
+        }
+    }
+
+    void fill(BookOrder order, long size) {
+        order.reduce(size);
+        totalSize -= size;
+    }
+
+    Collection<BookOrder> queue() {
+        return orders.values();
+    }
+
+    boolean isEmpty() {
+        return orders.isEmpty();
+    }
+}
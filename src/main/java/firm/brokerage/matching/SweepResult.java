@@ -0,0 +1,16 @@
+package firm.brokerage.matching;
+
+import firm.brokerage.entity.OrderEntity;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of crossing all open orders of one asset
+ */
+@Value
+public class SweepResult {
+    String assetName;
+    int tradeCount;
+    List<OrderEntity> filledOrders;
+}
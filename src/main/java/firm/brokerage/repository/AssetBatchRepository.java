@@ -0,0 +1,22 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.AssetEntity;
+
+import java.util.List;
+
+/**
+ * Writes of assets that bypass the persistence context
+ */
+public interface AssetBatchRepository {
+
+    /**
+     * Insert or overwrite asset rows with one JDBC batch, writing each row's version as given
+     */
+    void upsertAll(List<AssetEntity> assets);
+
+    /**
+     * Re-read an asset after a bulk update, only if this transaction has it loaded
+     * Everything else in the persistence context stays managed, and nothing is read otherwise.
+     */
+    void refreshIfLoaded(String customerId, String assetName);
+}
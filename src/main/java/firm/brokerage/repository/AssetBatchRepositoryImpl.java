@@ -0,0 +1,45 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.AssetId;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+class AssetBatchRepositoryImpl implements AssetBatchRepository {
+
+    private static final String UPSERT_ASSET =
+            "MERGE INTO assets (customer_id, asset_name, size, usable_size, version) " +
+            "KEY (customer_id, asset_name) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Override
+    public void upsertAll(List<AssetEntity> assets) {
+        if (assets.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_ASSET, assets, assets.size(), (statement, asset) -> {
+            statement.setString(1, asset.getCustomerId());
+            statement.setString(2, asset.getAssetName());
+            statement.setBigDecimal(3, asset.getSize());
+            statement.setBigDecimal(4, asset.getUsableSize());
+            statement.setLong(5, asset.getVersion());
+        });
+    }
+
+    @Override
+    public void refreshIfLoaded(String customerId, String assetName) {
+        // The managed instance if loaded, otherwise an uninitialized proxy created without a query
+        AssetEntity reference = entityManager.getReference(AssetEntity.class, new AssetId(customerId, assetName));
+        if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(reference)) {
+            entityManager.refresh(reference);
+        } else {
+            entityManager.detach(reference);
+        }
+    }
+}
@@ -2,28 +2,76 @@ package firm.brokerage.repository;
 
 import firm.brokerage.entity.AssetEntity;
 import firm.brokerage.entity.AssetId;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface AssetRepository extends JpaRepository<AssetEntity, AssetId> {
+public interface AssetRepository extends JpaRepository<AssetEntity, AssetId>, AssetBatchRepository {
 
     /**
      * Find all assets for a customer
      */
     List<AssetEntity> findByCustomerId(String customerId);
 
+    /**
+     * Stream assets row by row from a JDBC cursor (for exports); needs an open transaction
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<AssetEntity> streamByCustomerId(String customerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT a FROM AssetEntity a")
+    Stream<AssetEntity> streamAll();
+
     /**
      * Find specific asset for a customer
      */
     Optional<AssetEntity> findByCustomerIdAndAssetName(String customerId, String assetName);
 
+    /**
+     * Find specific asset for a customer and lock its row until the transaction ends
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM AssetEntity a WHERE a.customerId = :customerId AND a.assetName = :assetName")
+    Optional<AssetEntity> findForUpdate(@Param("customerId") String customerId, @Param("assetName") String assetName);
+
+    /**
+     * Move an amount from usable to reserved in one statement, only if that much is usable
+     * Returns 0 when the asset does not exist or its usable size is too small.
+     * A loaded copy of the row is left stale; see {@link #refreshIfLoaded(String, String)}
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AssetEntity a SET a.usableSize = a.usableSize - :amount, a.version = a.version + 1 " +
+            "WHERE a.customerId = :customerId AND a.assetName = :assetName AND a.usableSize >= :amount")
+    int reserveUsable(@Param("customerId") String customerId,
+                      @Param("assetName") String assetName,
+                      @Param("amount") BigDecimal amount);
+
+    /**
+     * Move a reserved amount back to usable in one statement, only if that much is reserved
+     * Returns 0 when the asset does not exist or less than the amount is reserved.
+     * A loaded copy of the row is left stale; see {@link #refreshIfLoaded(String, String)}
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AssetEntity a SET a.usableSize = a.usableSize + :amount, a.version = a.version + 1 " +
+            "WHERE a.customerId = :customerId AND a.assetName = :assetName AND a.usableSize + :amount <= a.size")
+    int releaseUsable(@Param("customerId") String customerId,
+                      @Param("assetName") String assetName,
+                      @Param("amount") BigDecimal amount);
+
     /**
      * Find all customers who have a specific asset
      */
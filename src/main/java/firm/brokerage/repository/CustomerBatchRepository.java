@@ -0,0 +1,15 @@
+package firm.brokerage.repository;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Bulk writes of customers that bypass the persistence context
+ */
+public interface CustomerBatchRepository {
+
+    /**
+     * Set the last login time of many customers with one JDBC batch
+     */
+    void updateLastLoginDates(Map<String, LocalDateTime> lastLoginDates);
+}
@@ -0,0 +1,30 @@
+package firm.brokerage.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+class CustomerBatchRepositoryImpl implements CustomerBatchRepository {
+
+    private static final String UPDATE_LAST_LOGIN =
+            "UPDATE customers SET last_login_date = ? WHERE customer_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void updateLastLoginDates(Map<String, LocalDateTime> lastLoginDates) {
+        if (lastLoginDates.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, LocalDateTime>> rows = List.copyOf(lastLoginDates.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_LAST_LOGIN, rows, rows.size(), (statement, row) -> {
+            statement.setTimestamp(1, Timestamp.valueOf(row.getValue()));
+            statement.setString(2, row.getKey());
+        });
+    }
+}
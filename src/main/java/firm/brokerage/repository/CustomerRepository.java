@@ -7,7 +7,7 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface CustomerRepository extends JpaRepository<CustomerEntity, String> {
+public interface CustomerRepository extends JpaRepository<CustomerEntity, String>, CustomerBatchRepository {
 
     // Find customer by username for authentication
     Optional<CustomerEntity> findByUsername(String username);
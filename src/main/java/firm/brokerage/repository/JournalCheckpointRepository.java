@@ -0,0 +1,14 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.JournalCheckpointEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpointEntity, String> {
+
+    // Highest checkpointed sequence of any asset, 0 if none (for numbering new journal entries)
+    @Query("SELECT COALESCE(MAX(c.lastSequence), 0) FROM JournalCheckpointEntity c")
+    long findMaxLastSequence();
+}
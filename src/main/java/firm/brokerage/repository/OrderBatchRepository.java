@@ -0,0 +1,17 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.OrderEntity;
+
+import java.util.List;
+
+/**
+ * Bulk writes of orders that bypass the persistence context
+ */
+public interface OrderBatchRepository {
+
+    /**
+     * Insert new orders with one JDBC batch; the entities do not become managed
+     * but are marked as stored, so a later save() updates them
+     */
+    void insertAll(List<OrderEntity> orders);
+}
@@ -0,0 +1,37 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.OrderEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+class OrderBatchRepositoryImpl implements OrderBatchRepository {
+
+    private static final String INSERT_ORDER =
+            "INSERT INTO orders (order_id, customer_id, asset_name, order_side, size, filled_size, price, status, create_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<OrderEntity> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ORDER, orders, orders.size(), (statement, order) -> {
+            statement.setString(1, order.getOrderId());
+            statement.setString(2, order.getCustomerId());
+            statement.setString(3, order.getAssetName());
+            statement.setString(4, order.getOrderSide().name());
+            statement.setBigDecimal(5, order.getSize());
+            statement.setBigDecimal(6, order.getFilledSize());
+            statement.setBigDecimal(7, order.getPrice());
+            statement.setString(8, order.getStatus().name());
+            statement.setTimestamp(9, Timestamp.valueOf(order.getCreateDate()));
+        });
+        orders.forEach(OrderEntity::markPersisted);
+    }
+}
@@ -0,0 +1,20 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keyset paging over a customer's orders, newest first
+ */
+public interface OrderHistoryRepository {
+
+    /**
+     * Orders of a customer that come after the given (createDate, orderId) position, newest first
+     * Status and asset filters are optional; a null position starts from the newest order.
+     */
+    List<OrderEntity> findPage(String customerId, OrderStatus status, String assetName,
+                               LocalDateTime afterCreateDate, String afterOrderId, int limit);
+}
@@ -0,0 +1,48 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RequiredArgsConstructor
+class OrderHistoryRepositoryImpl implements OrderHistoryRepository {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public List<OrderEntity> findPage(String customerId, OrderStatus status, String assetName,
+                                      LocalDateTime afterCreateDate, String afterOrderId, int limit) {
+        // Seeks into the (customer_id, create_date, order_id) index instead of skipping an offset
+        StringBuilder jpql = new StringBuilder("SELECT o FROM OrderEntity o WHERE o.customerId = :customerId");
+        if (status != null) {
+            jpql.append(" AND o.status = :status");
+        }
+        if (assetName != null) {
+            jpql.append(" AND o.assetName = :assetName");
+        }
+        if (afterCreateDate != null) {
+            jpql.append(" AND (o.createDate < :createDate OR (o.createDate = :createDate AND o.orderId < :orderId))");
+        }
+        jpql.append(" ORDER BY o.createDate DESC, o.orderId DESC");
+
+        TypedQuery<OrderEntity> query = entityManager.createQuery(jpql.toString(), OrderEntity.class)
+                .setParameter("customerId", customerId)
+                .setMaxResults(limit);
+        if (status != null) {
+            query.setParameter("status", status);
+        }
+        if (assetName != null) {
+            query.setParameter("assetName", assetName);
+        }
+        if (afterCreateDate != null) {
+            query.setParameter("createDate", afterCreateDate);
+            query.setParameter("orderId", afterOrderId);
+        }
+        return query.getResultList();
+    }
+}
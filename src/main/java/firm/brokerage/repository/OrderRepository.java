@@ -2,17 +2,24 @@ package firm.brokerage.repository;
 
 import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<OrderEntity, String> {
+public interface OrderRepository extends JpaRepository<OrderEntity, String>, OrderBatchRepository,
+        OrderHistoryRepository {
 
     // Find orders by customer ID
     List<OrderEntity> findByCustomerIdOrderByCreateDateDesc(String customerId);
@@ -25,12 +32,43 @@ public interface OrderRepository extends JpaRepository<OrderEntity, String> {
                                                    @Param("startDate") LocalDateTime startDate,
                                                    @Param("endDate") LocalDateTime endDate);
 
+    // Stream orders row by row from a JDBC cursor (for exports); needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<OrderEntity> streamByCustomerIdOrderByCreateDateAsc(String customerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT o FROM OrderEntity o ORDER BY o.createDate ASC")
+    Stream<OrderEntity> streamAll();
+
     // Find order by ID and customer ID (for security)
     Optional<OrderEntity> findByOrderIdAndCustomerId(String orderId, String customerId);
 
     // Find pending orders for a customer
     List<OrderEntity> findByCustomerIdAndStatusOrderByCreateDateDesc(String customerId, OrderStatus status);
 
+    // Find open orders of a customer, over all assets or for one asset (for mass cancel)
+    List<OrderEntity> findByCustomerIdAndStatusInOrderByCreateDateAsc(String customerId, Collection<OrderStatus> statuses);
+
+    List<OrderEntity> findByCustomerIdAndAssetNameAndStatusInOrderByCreateDateAsc(String customerId, String assetName,
+                                                                                 Collection<OrderStatus> statuses);
+
+    // Move orders still in one of the given statuses to a new status in a single UPDATE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderEntity o SET o.status = :status " +
+            "WHERE o.orderId IN :orderIds AND o.status IN :currentStatuses")
+    int updateStatus(@Param("orderIds") Collection<String> orderIds,
+                     @Param("currentStatuses") Collection<OrderStatus> currentStatuses,
+                     @Param("status") OrderStatus status);
+
     // Find all pending orders (for admin matching)
     List<OrderEntity> findByStatusOrderByCreateDateAsc(OrderStatus status);
+
+    // Find orders of all assets by statuses in arrival order (for snapshotting the books)
+    List<OrderEntity> findByStatusInOrderByCreateDateAsc(Collection<OrderStatus> statuses);
+
+    // Check if an asset was ever ordered (for opening its market data)
+    boolean existsByAssetName(String assetName);
+
+    // Find orders of one asset by statuses in arrival order (for loading an order book)
+    List<OrderEntity> findByAssetNameAndStatusInOrderByCreateDateAsc(String assetName, Collection<OrderStatus> statuses);
 }
@@ -0,0 +1,16 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.TradeEntity;
+
+import java.util.List;
+
+/**
+ * Bulk writes of trades that bypass the persistence context
+ */
+public interface TradeBatchRepository {
+
+    /**
+     * Insert new trades with one JDBC batch; the entities do not become managed
+     */
+    void insertAll(List<TradeEntity> trades);
+}
@@ -0,0 +1,34 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.TradeEntity;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@RequiredArgsConstructor
+class TradeBatchRepositoryImpl implements TradeBatchRepository {
+
+    private static final String INSERT_TRADE =
+            "INSERT INTO trades (trade_id, asset_name, buy_order_id, sell_order_id, price, size, trade_date) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<TradeEntity> trades) {
+        if (trades.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_TRADE, trades, trades.size(), (statement, trade) -> {
+            statement.setLong(1, trade.getTradeId());
+            statement.setString(2, trade.getAssetName());
+            statement.setString(3, trade.getBuyOrderId());
+            statement.setString(4, trade.getSellOrderId());
+            statement.setBigDecimal(5, trade.getPrice());
+            statement.setBigDecimal(6, trade.getSize());
+            statement.setTimestamp(7, Timestamp.valueOf(trade.getTradeDate()));
+        });
+    }
+}
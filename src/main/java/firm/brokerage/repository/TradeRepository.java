@@ -0,0 +1,27 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.TradeEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TradeRepository extends JpaRepository<TradeEntity, Long>, TradeBatchRepository {
+
+    // Trades of an asset after a (tradeDate, tradeId) position and before an end date, in execution order.
+    // Seeks into the (asset_name, trade_date, trade_id) index instead of skipping an offset.
+    @Query("SELECT t FROM TradeEntity t WHERE t.assetName = :assetName " +
+            "AND (t.tradeDate > :afterDate OR (t.tradeDate = :afterDate AND t.tradeId > :afterTradeId)) " +
+            "AND t.tradeDate < :endDate " +
+            "ORDER BY t.tradeDate ASC, t.tradeId ASC")
+    List<TradeEntity> findPage(@Param("assetName") String assetName,
+                               @Param("afterDate") LocalDateTime afterDate,
+                               @Param("afterTradeId") long afterTradeId,
+                               @Param("endDate") LocalDateTime endDate,
+                               Limit limit);
+}
@@ -2,17 +2,24 @@ package firm.brokerage.service;
 
 import firm.brokerage.entity.AssetEntity;
 import firm.brokerage.entity.AssetId;
+import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.OrderSide;
 import firm.brokerage.exception.AssetNotFoundException;
 import firm.brokerage.exception.InsufficientFundsException;
 import firm.brokerage.repository.AssetRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 @RequiredArgsConstructor
@@ -21,7 +28,12 @@ import java.util.List;
 public class AssetService {
 
     private final AssetRepository assetRepository;
-    private static final String TRY_ASSET = "TRY";
+    private final CustomerLocks customerLocks;
+    private final BalanceStore balanceStore;
+    static final String TRY_ASSET = "TRY";
+
+    @Value("${brokerage.locking.pessimistic:false}")
+    private boolean pessimisticLocking;
 
     /**
      * Get all assets for a customer
@@ -29,7 +41,9 @@ public class AssetService {
     @Transactional(readOnly = true)
     public List<AssetEntity> getCustomerAssets(String customerId) {
         log.debug("Getting assets for customer: {}", customerId);
-        return assetRepository.findByCustomerId(customerId);
+        return balanceStore.isEnabled()
+                ? balanceStore.getAssets(customerId)
+                : assetRepository.findByCustomerId(customerId);
     }
 
     /**
@@ -37,8 +51,10 @@ public class AssetService {
      */
     @Transactional(readOnly = true)
     public AssetEntity getCustomerAsset(String customerId, String assetName) {
-        return assetRepository.findByCustomerIdAndAssetName(customerId, assetName)
-                .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
+        Optional<AssetEntity> asset = balanceStore.isEnabled()
+                ? balanceStore.getAsset(customerId, assetName)
+                : assetRepository.findByCustomerIdAndAssetName(customerId, assetName);
+        return asset.orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
     }
 
     /**
@@ -46,21 +62,77 @@ public class AssetService {
      */
     public void reserveAssetsForOrder(String customerId, String assetName, OrderSide orderSide,
                                       BigDecimal size, BigDecimal price) {
+        customerLocks.lock(customerId);
+
         if (orderSide == OrderSide.BUY) {
             // For BUY orders, reserve TRY (money)
             BigDecimal requiredTry = size.multiply(price);
-            reserveTryAsset(customerId, requiredTry);
+            reserveAsset(customerId, TRY_ASSET, requiredTry);
         } else {
             // For SELL orders, reserve the asset being sold
             reserveAsset(customerId, assetName, size);
         }
     }
 
+    /**
+     * Reserve for several orders of one customer on one asset
+     * The requirements are summed so the TRY row and the asset row are each read and written once.
+     * Orders are accepted in the given order while the usable balance covers them; the rest are
+     * returned as rejections by order ID and reserve nothing.
+     */
+    public Map<String, RuntimeException> reserveAssetsForOrders(String customerId, String assetName,
+                                                                List<OrderEntity> orders) {
+        customerLocks.lock(customerId);
+
+        Map<String, RuntimeException> rejections = new HashMap<>();
+        boolean anyBuy = orders.stream().anyMatch(OrderEntity::isBuyOrder);
+        boolean anySell = orders.stream().anyMatch(OrderEntity::isSellOrder);
+
+        Optional<AssetEntity> tryAsset = anyBuy
+                ? findAsset(customerId, TRY_ASSET)
+                : Optional.empty();
+        Optional<AssetEntity> tradedAsset = anySell
+                ? findAsset(customerId, assetName)
+                : Optional.empty();
+
+        BigDecimal tryRequired = BigDecimal.ZERO;
+        BigDecimal assetRequired = BigDecimal.ZERO;
+        for (OrderEntity order : orders) {
+            String reservedAssetName = order.isBuyOrder() ? TRY_ASSET : assetName;
+            Optional<AssetEntity> reservedAsset = order.isBuyOrder() ? tryAsset : tradedAsset;
+            if (reservedAsset.isEmpty()) {
+                rejections.put(order.getOrderId(), new AssetNotFoundException(customerId, reservedAssetName));
+                continue;
+            }
+
+            BigDecimal required = order.isBuyOrder() ? order.getTotalValue() : order.getSize();
+            BigDecimal alreadyRequired = order.isBuyOrder() ? tryRequired : assetRequired;
+            BigDecimal available = reservedAsset.get().getUsableSize().subtract(alreadyRequired);
+            if (available.compareTo(required) < 0) {
+                rejections.put(order.getOrderId(), new InsufficientFundsException(customerId, reservedAssetName,
+                        required.toString(), available.toString()));
+                continue;
+            }
+
+            if (order.isBuyOrder()) {
+                tryRequired = tryRequired.add(required);
+            } else {
+                assetRequired = assetRequired.add(required);
+            }
+        }
+
+        reserveTotal(tryAsset, tryRequired);
+        reserveTotal(tradedAsset, assetRequired);
+        return rejections;
+    }
+
     /**
      * Release assets when order is canceled
      */
     public void releaseAssetsForOrder(String customerId, String assetName, OrderSide orderSide,
                                       BigDecimal size, BigDecimal price) {
+        customerLocks.lock(customerId);
+
         if (orderSide == OrderSide.BUY) {
             // Release TRY
             BigDecimal tryAmount = size.multiply(price);
@@ -71,28 +143,111 @@ public class AssetService {
         }
     }
 
+    /**
+     * Release what is still reserved for several canceled orders of one customer on one asset
+     * The amounts are summed so the TRY row and the asset row are each updated once.
+     */
+    public void releaseAssetsForOrders(String customerId, String assetName, List<OrderEntity> orders) {
+        customerLocks.lock(customerId);
+
+        BigDecimal tryAmount = BigDecimal.ZERO;
+        BigDecimal assetAmount = BigDecimal.ZERO;
+        for (OrderEntity order : orders) {
+            if (order.isBuyOrder()) {
+                tryAmount = tryAmount.add(order.getRemainingSize().multiply(order.getPrice()));
+            } else {
+                assetAmount = assetAmount.add(order.getRemainingSize());
+            }
+        }
+
+        if (tryAmount.signum() > 0) {
+            releaseAsset(customerId, TRY_ASSET, tryAmount);
+        }
+        if (assetAmount.signum() > 0) {
+            releaseAsset(customerId, assetName, assetAmount);
+        }
+    }
+
     /**
      * Process matched order
      */
     public void processMatchedOrder(String customerId, String assetName, OrderSide orderSide,
                                     BigDecimal size, BigDecimal price) {
+        processMatchedOrder(customerId, assetName, orderSide, size, price, price);
+    }
+
+    /**
+     * Process one fill of an order executed at a price other than its limit
+     * Only the filled size is settled from the reservation, so large orders settle fill by fill;
+     * a BUY executed below its limit gets the difference released
+     */
+    public void processMatchedOrder(String customerId, String assetName, OrderSide orderSide,
+                                    BigDecimal size, BigDecimal limitPrice, BigDecimal executionPrice) {
+        customerLocks.lock(customerId);
+
+        BigDecimal tryAmount = size.multiply(executionPrice);
+
         if (orderSide == OrderSide.BUY) {
-            // Customer bought asset: decrease TRY, increase asset
-            BigDecimal tryAmount = size.multiply(price);
-            decreaseAsset(customerId, TRY_ASSET, tryAmount);
+            // Customer bought asset: pay TRY out of the reservation, increase asset
+            BigDecimal priceImprovement = size.multiply(limitPrice.subtract(executionPrice));
+            consumeReservedAsset(customerId, TRY_ASSET, tryAmount, priceImprovement);
             increaseAsset(customerId, assetName, size);
         } else {
-            // Customer sold asset: decrease asset, increase TRY
-            decreaseAsset(customerId, assetName, size);
-            BigDecimal tryAmount = size.multiply(price);
+            // Customer sold asset: deliver asset out of the reservation, increase TRY
+            consumeReservedAsset(customerId, assetName, size, BigDecimal.ZERO);
             increaseAsset(customerId, TRY_ASSET, tryAmount);
         }
     }
 
+    /**
+     * Apply the summed balance changes of many fills
+     * All touched rows are read in one query and each is saved once.
+     */
+    public void applySettlement(SettlementBatch settlement) {
+        if (settlement.isEmpty()) {
+            return;
+        }
+        customerLocks.lockAll(settlement.getAssetIds().stream().map(AssetId::getCustomerId).toList());
+
+        if (balanceStore.isEnabled()) {
+            settlement.getChanges().forEach((assetId, change) -> balanceStore.update(
+                    assetId.getCustomerId(), assetId.getAssetName(), !change.consumesOrReleases(),
+                    asset -> applyChange(asset, change)));
+            return;
+        }
+
+        Map<AssetId, AssetEntity> assets = new HashMap<>();
+        assetRepository.findAllById(settlement.getAssetIds())
+                .forEach(asset -> assets.put(new AssetId(asset.getCustomerId(), asset.getAssetName()), asset));
+
+        List<AssetEntity> settled = new ArrayList<>();
+        settlement.getChanges().forEach((assetId, change) -> {
+            AssetEntity asset = assets.get(assetId);
+            if (asset == null) {
+                if (change.consumesOrReleases()) {
+                    throw new AssetNotFoundException(assetId.getCustomerId(), assetId.getAssetName());
+                }
+                asset = new AssetEntity(assetId.getCustomerId(), assetId.getAssetName(), BigDecimal.ZERO);
+            }
+
+            applyChange(asset, change);
+            settled.add(asset);
+        });
+
+        assetRepository.saveAll(settled);
+        log.debug("Settled {} asset rows in one batch", settled.size());
+    }
+
     /**
      * Create or update asset
      */
     public AssetEntity createOrUpdateAsset(String customerId, String assetName, BigDecimal size) {
+        customerLocks.lock(customerId);
+
+        if (balanceStore.isEnabled()) {
+            return balanceStore.update(customerId, assetName, true, asset -> asset.increase(size));
+        }
+
         AssetId assetId = new AssetId(customerId, assetName);
 
         return assetRepository.findById(assetId)
@@ -108,58 +263,133 @@ public class AssetService {
 
     // Private helper methods
 
-    private void reserveTryAsset(String customerId, BigDecimal amount) {
-        AssetEntity tryAsset = assetRepository.findByCustomerIdAndAssetName(customerId, TRY_ASSET)
-                .orElseThrow(() -> new AssetNotFoundException(customerId, TRY_ASSET));
-
-        if (!tryAsset.hasSufficientUsableAmount(amount)) {
-            throw new InsufficientFundsException(customerId, TRY_ASSET,
-                    amount.toString(), tryAsset.getUsableSize().toString());
+    /**
+     * Read a row that is about to be changed; with pessimistic locking the row is also locked
+     * in the database until the transaction ends, which guards against writers in other instances
+     */
+    private Optional<AssetEntity> findAsset(String customerId, String assetName) {
+        if (balanceStore.isEnabled()) {
+            return balanceStore.getAsset(customerId, assetName);
         }
-
-        tryAsset.reserve(amount);
-        assetRepository.save(tryAsset);
-        log.debug("Reserved {} TRY for customer {}", amount, customerId);
+        return pessimisticLocking
+                ? assetRepository.findForUpdate(customerId, assetName)
+                : assetRepository.findByCustomerIdAndAssetName(customerId, assetName);
     }
 
     private void reserveAsset(String customerId, String assetName, BigDecimal amount) {
-        AssetEntity asset = assetRepository.findByCustomerIdAndAssetName(customerId, assetName)
-                .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
-
-        if (!asset.hasSufficientUsableAmount(amount)) {
+        // One conditional reserve; the row is only read to explain a refusal
+        if (!reserveUsable(customerId, assetName, amount)) {
+            AssetEntity asset = findAsset(customerId, assetName)
+                    .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
             throw new InsufficientFundsException(customerId, assetName,
                     amount.toString(), asset.getUsableSize().toString());
         }
-
-        asset.reserve(amount);
-        assetRepository.save(asset);
         log.debug("Reserved {} {} for customer {}", amount, assetName, customerId);
     }
 
-    private void releaseAsset(String customerId, String assetName, BigDecimal amount) {
-        AssetEntity asset = assetRepository.findByCustomerIdAndAssetName(customerId, assetName)
-                .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
+    private void reserveTotal(Optional<AssetEntity> asset, BigDecimal amount) {
+        if (asset.isEmpty() || amount.signum() == 0) {
+            return;
+        }
+
+        String customerId = asset.get().getCustomerId();
+        String assetName = asset.get().getAssetName();
+        if (!reserveUsable(customerId, assetName, amount)) {
+            // The balance was checked in this transaction, so only a concurrent writer gets here
+            throw new IllegalStateException(String.format(
+                    "Usable %s of customer %s changed while reserving a batch, please retry", assetName, customerId));
+        }
+        log.debug("Reserved {} {} for customer {} in one batch", amount, assetName, customerId);
+    }
+
+    /**
+     * Move an amount from usable to reserved only if that much is usable
+     */
+    private boolean reserveUsable(String customerId, String assetName, BigDecimal amount) {
+        if (!balanceStore.isEnabled()) {
+            if (assetRepository.reserveUsable(customerId, assetName, amount) == 0) {
+                return false;
+            }
+            assetRepository.refreshIfLoaded(customerId, assetName);
+            return true;
+        }
+
+        AtomicBoolean reserved = new AtomicBoolean();
+        balanceStore.update(customerId, assetName, false, asset -> {
+            if (asset.hasSufficientUsableAmount(amount)) {
+                asset.reserve(amount);
+                reserved.set(true);
+            }
+        });
+        return reserved.get();
+    }
 
-        asset.release(amount);
-        assetRepository.save(asset);
+    private void releaseAsset(String customerId, String assetName, BigDecimal amount) {
+        if (balanceStore.isEnabled()) {
+            balanceStore.update(customerId, assetName, false, asset -> {
+                if (asset.getReservedAmount().compareTo(amount) < 0) {
+                    throw overRelease(asset, amount);
+                }
+                asset.release(amount);
+            });
+        } else if (assetRepository.releaseUsable(customerId, assetName, amount) == 0) {
+            // One conditional release; the row is only read to explain a refusal
+            AssetEntity asset = findAsset(customerId, assetName)
+                    .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
+            throw overRelease(asset, amount);
+        } else {
+            assetRepository.refreshIfLoaded(customerId, assetName);
+        }
         log.debug("Released {} {} for customer {}", amount, assetName, customerId);
     }
 
-    private void decreaseAsset(String customerId, String assetName, BigDecimal amount) {
-        AssetEntity asset = assetRepository.findByCustomerIdAndAssetName(customerId, assetName)
-                .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
+    private static IllegalStateException overRelease(AssetEntity asset, BigDecimal amount) {
+        return new IllegalStateException(String.format("Cannot release %s %s of customer %s, only %s reserved",
+                amount, asset.getAssetName(), asset.getCustomerId(), asset.getReservedAmount()));
+    }
 
-        asset.decrease(amount);
-        assetRepository.save(asset);
-        log.debug("Decreased {} {} for customer {}", amount, assetName, customerId);
+    private void consumeReservedAsset(String customerId, String assetName, BigDecimal amount,
+                                      BigDecimal unusedAmount) {
+        if (balanceStore.isEnabled()) {
+            balanceStore.update(customerId, assetName, false, asset -> consumeReserved(asset, amount, unusedAmount));
+        } else {
+            AssetEntity asset = findAsset(customerId, assetName)
+                    .orElseThrow(() -> new AssetNotFoundException(customerId, assetName));
+            consumeReserved(asset, amount, unusedAmount);
+            assetRepository.save(asset);
+        }
+        log.debug("Consumed {} reserved {} for customer {}", amount, assetName, customerId);
     }
 
     private void increaseAsset(String customerId, String assetName, BigDecimal amount) {
-        AssetEntity asset = assetRepository.findByCustomerIdAndAssetName(customerId, assetName)
-                .orElse(new AssetEntity(customerId, assetName, BigDecimal.ZERO));
-
-        asset.increase(amount);
-        assetRepository.save(asset);
+        if (balanceStore.isEnabled()) {
+            balanceStore.update(customerId, assetName, true, asset -> asset.increase(amount));
+        } else {
+            AssetEntity asset = findAsset(customerId, assetName)
+                    .orElse(new AssetEntity(customerId, assetName, BigDecimal.ZERO));
+            asset.increase(amount);
+            assetRepository.save(asset);
+        }
         log.debug("Increased {} {} for customer {}", amount, assetName, customerId);
     }
+
+    private static void consumeReserved(AssetEntity asset, BigDecimal amount, BigDecimal unusedAmount) {
+        asset.consumeReserved(amount);
+        if (unusedAmount.signum() > 0) {
+            // Reserved but not needed, e.g. a BUY executed below its limit
+            asset.release(unusedAmount);
+        }
+    }
+
+    private static void applyChange(AssetEntity asset, SettlementBatch.Change change) {
+        if (change.consumed.signum() > 0) {
+            asset.consumeReserved(change.consumed);
+        }
+        if (change.released.signum() > 0) {
+            asset.release(change.released);
+        }
+        if (change.increased.signum() > 0) {
+            asset.increase(change.increased);
+        }
+    }
 }
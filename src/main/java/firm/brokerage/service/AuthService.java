@@ -3,25 +3,73 @@ package firm.brokerage.service;
 import firm.brokerage.entity.CustomerEntity;
 import firm.brokerage.exception.AccountDeactivatedException;
 import firm.brokerage.exception.InvalidCredentialsException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
-import java.util.UUID;
+import java.util.List;
 
 /**
  * Service for customer authentication
- * Simple JWT-like token generation for demonstration
+ * Tokens are stateless: Base64URL(customerId:roles:expiry) followed by '.' and an HMAC-SHA256
+ * signature of that part. Verifying one needs no database access and no password hashing.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AuthService {
 
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final String CUSTOMER_ROLE = "CUSTOMER";
+
     private final CustomerService customerService;
     private final PasswordEncoder passwordEncoder;
+    private final Duration tokenTtl;
+    private final Clock clock;
+
+    // Mac instances are not thread-safe; each thread keeps one initialized with the key
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public AuthService(CustomerService customerService,
+                       PasswordEncoder passwordEncoder,
+                       @Value("${brokerage.auth.token-secret:}") String tokenSecret,
+                       @Value("${brokerage.auth.token-ttl-seconds:3600}") long tokenTtlSeconds) {
+        this(customerService, passwordEncoder, tokenSecret, Duration.ofSeconds(tokenTtlSeconds), Clock.systemUTC());
+    }
+
+    AuthService(CustomerService customerService, PasswordEncoder passwordEncoder,
+                String tokenSecret, Duration tokenTtl, Clock clock) {
+        if (tokenTtl.isNegative() || tokenTtl.isZero()) {
+            throw new IllegalArgumentException("Token TTL must be positive");
+        }
+        this.customerService = customerService;
+        this.passwordEncoder = passwordEncoder;
+        this.tokenTtl = tokenTtl;
+        this.clock = clock;
+
+        SecretKeySpec key = new SecretKeySpec(keyBytes(tokenSecret), HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HMAC-SHA256 is not available", e);
+            }
+        });
+    }
 
     /**
      * Authenticate customer with username and password
@@ -42,24 +90,68 @@ public class AuthService {
     }
 
     /**
-     * Generate a simple token for the customer
-     * In production, use proper JWT with expiration
+     * Generate a signed token for the customer that expires after the token TTL
      */
     public String generateToken(CustomerEntity customer) {
-        String tokenData = customer.getCustomerId() + ":" + customer.getUsername() + ":" + UUID.randomUUID();
-        return Base64.getEncoder().encodeToString(tokenData.getBytes());
+        Instant expiresAt = clock.instant().plus(tokenTtl);
+        String claims = customer.getCustomerId() + ":" + CUSTOMER_ROLE + ":" + expiresAt.getEpochSecond();
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sign(payload));
     }
 
     /**
-     * Validate and decode token (simplified implementation)
-     * In production, use proper JWT validation
+     * Verify a token's signature and expiry and return its claims
      */
-    public String validateToken(String token) {
+    public TokenClaims verifyToken(String token) {
+        int separator = token == null ? -1 : token.indexOf('.');
+        if (separator <= 0) {
+            throw new InvalidCredentialsException("Invalid token");
+        }
+
+        String payload = token.substring(0, separator);
         try {
-            String decoded = new String(Base64.getDecoder().decode(token));
-            return decoded.split(":")[0]; // Return customer ID
-        } catch (Exception e) {
+            byte[] signature = Base64.getUrlDecoder().decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                throw new InvalidCredentialsException("Invalid token");
+            }
+
+            String[] claims = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8).split(":");
+            if (claims.length != 3) {
+                throw new InvalidCredentialsException("Invalid token");
+            }
+            Instant expiresAt = Instant.ofEpochSecond(Long.parseLong(claims[2]));
+            if (!clock.instant().isBefore(expiresAt)) {
+                throw new InvalidCredentialsException("Token expired");
+            }
+            return new TokenClaims(claims[0], List.of(claims[1].split(",")), expiresAt);
+        } catch (IllegalArgumentException e) {
+            // Malformed Base64 or expiry
             throw new InvalidCredentialsException("Invalid token");
         }
     }
+
+    /**
+     * Validate token and return the customer ID it was issued to
+     */
+    public String validateToken(String token) {
+        return verifyToken(token).getCustomerId();
+    }
+
+    // Private helper methods
+
+    private byte[] sign(String payload) {
+        return macs.get().doFinal(payload.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] keyBytes(String tokenSecret) {
+        if (tokenSecret != null && !tokenSecret.isBlank()) {
+            return tokenSecret.getBytes(StandardCharsets.UTF_8);
+        }
+
+        log.warn("No brokerage.auth.token-secret configured, tokens will not survive a restart");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
 }
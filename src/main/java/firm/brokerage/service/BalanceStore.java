@@ -0,0 +1,302 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.AssetId;
+import firm.brokerage.exception.AssetNotFoundException;
+import firm.brokerage.repository.AssetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory balances written through to the assets table
+ * While enabled, a customer's rows are loaded once on first use, then read and changed here
+ * without a query. The rows a transaction changed are upserted in one batch just before it
+ * commits, so balances commit atomically with the orders and trades of the same command and
+ * survive a crash. A change made in a transaction that rolls back is undone. Customers idle for
+ * the idle time, and the least recently used beyond the maximum, are dropped and reloaded on
+ * next use. Requires striped customer locks, so no other transaction changes a customer's
+ * balances while they are written.
+ */
+@Component
+@Slf4j
+public class BalanceStore {
+
+    private final AssetRepository assetRepository;
+    private final boolean enabled;
+    private final int maxCustomers;
+    private final long idleNanos;
+    private final LongSupplier clock;
+
+    private final Map<String, Balances> customers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BalanceStore(AssetRepository assetRepository,
+                        @Value("${brokerage.balance-store.enabled:false}") boolean enabled,
+                        @Value("${brokerage.locking.striped:true}") boolean stripedLocks,
+                        @Value("${brokerage.balance-store.max-customers:100000}") int maxCustomers,
+                        @Value("${brokerage.balance-store.idle-ms:600000}") long idleMillis) {
+        this(assetRepository, enabled, stripedLocks, maxCustomers, idleMillis, System::nanoTime);
+    }
+
+    BalanceStore(AssetRepository assetRepository, boolean enabled, boolean stripedLocks,
+                 int maxCustomers, long idleMillis, LongSupplier clock) {
+        if (enabled && !stripedLocks) {
+            throw new IllegalStateException("brokerage.balance-store.enabled requires brokerage.locking.striped: "
+                    + "a transaction could otherwise write another transaction's uncommitted balance change");
+        }
+        if (maxCustomers < 0 || idleMillis < 0) {
+            throw new IllegalArgumentException("Balance store size and idle time must not be negative");
+        }
+        this.assetRepository = assetRepository;
+        this.enabled = enabled;
+        this.maxCustomers = maxCustomers;
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        this.clock = clock;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Copies of all balances of a customer
+     */
+    public List<AssetEntity> getAssets(String customerId) {
+        return withBalances(customerId, balances ->
+                balances.assets.values().stream().map(BalanceStore::copyOf).toList());
+    }
+
+    /**
+     * Copy of one balance of a customer
+     */
+    public Optional<AssetEntity> getAsset(String customerId, String assetName) {
+        return withBalances(customerId, balances ->
+                Optional.ofNullable(balances.assets.get(assetName)).map(BalanceStore::copyOf));
+    }
+
+    /**
+     * Change one balance atomically and return a copy of the result
+     * A missing balance is created empty if allowed, otherwise AssetNotFoundException is thrown.
+     * If the change throws, the balance is left as it was. The row is written when the current
+     * transaction commits, or at once without one; if the transaction rolls back, the change is undone.
+     */
+    public AssetEntity update(String customerId, String assetName, boolean createIfMissing,
+                              Consumer<AssetEntity> change) {
+        return withBalances(customerId, balances -> {
+            AssetEntity current = balances.assets.get(assetName);
+            if (current == null && !createIfMissing) {
+                throw new AssetNotFoundException(customerId, assetName);
+            }
+
+            AssetEntity changed = current != null
+                    ? copyOf(current)
+                    : new AssetEntity(customerId, assetName, BigDecimal.ZERO);
+            change.accept(changed);
+
+            if (current == null) {
+                balances.assets.put(assetName, changed);
+                current = changed;
+            }
+            BigDecimal sizeDelta = changed.getSize().subtract(current.getSize());
+            BigDecimal usableDelta = changed.getUsableSize().subtract(current.getUsableSize());
+            current.setSize(changed.getSize());
+            current.setUsableSize(changed.getUsableSize());
+
+            if (!registerChange(balances, new AssetId(customerId, assetName),
+                    () -> undo(balances, assetName, sizeDelta, usableDelta))) {
+                assetRepository.upsertAll(List.of(nextVersion(current)));
+            }
+            return copyOf(current);
+        });
+    }
+
+    /**
+     * Drop customers that were idle too long, then the least recently used beyond the maximum
+     * Customers with changes of an open transaction are kept.
+     */
+    @Scheduled(fixedDelayString = "${brokerage.balance-store.eviction-interval-ms:10000}")
+    public void evictIdle() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = clock.getAsLong();
+        List<Map.Entry<String, Balances>> byLastUse = new ArrayList<>(customers.entrySet());
+        byLastUse.sort(Comparator.comparingLong(entry -> entry.getValue().lastUsed));
+        int remaining = byLastUse.size();
+        int evicted = 0;
+        for (Map.Entry<String, Balances> entry : byLastUse) {
+            Balances balances = entry.getValue();
+            synchronized (balances) {
+                boolean idle = now - balances.lastUsed >= idleNanos;
+                if ((idle || remaining > maxCustomers) && balances.pending == 0) {
+                    balances.evicted = true;
+                    customers.remove(entry.getKey(), balances);
+                    remaining--;
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} customers from the balance store, {} left", evicted, remaining);
+        }
+    }
+
+    // Private helper methods
+
+    /**
+     * Run an action on a customer's balances under their lock, loading them first if needed
+     */
+    private <T> T withBalances(String customerId, Function<Balances, T> action) {
+        while (true) {
+            Balances balances = customers.computeIfAbsent(customerId, this::load);
+            synchronized (balances) {
+                // Evicted between lookup and lock; the next lookup loads the committed rows again
+                if (!balances.evicted) {
+                    balances.lastUsed = clock.getAsLong();
+                    return action.apply(balances);
+                }
+            }
+        }
+    }
+
+    private Balances load(String customerId) {
+        // Copies, so the store never shares an instance with a persistence context
+        Balances balances = new Balances();
+        assetRepository.findByCustomerId(customerId)
+                .forEach(asset -> balances.assets.put(asset.getAssetName(), copyOf(asset)));
+        return balances;
+    }
+
+    private static void undo(Balances balances, String assetName, BigDecimal sizeDelta, BigDecimal usableDelta) {
+        synchronized (balances) {
+            // Deltas rather than old values, so changes of other transactions made meanwhile survive
+            AssetEntity asset = balances.assets.get(assetName);
+            asset.setSize(asset.getSize().subtract(sizeDelta));
+            asset.setUsableSize(asset.getUsableSize().subtract(usableDelta));
+        }
+    }
+
+    /**
+     * Remember a change of the current transaction: its row is written before commit and its
+     * undo action run, newest first, if it does not commit. Returns false without a transaction.
+     */
+    private boolean registerChange(Balances balances, AssetId assetId, Runnable undo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+
+        Changes changes = (Changes) TransactionSynchronizationManager.getResource(this);
+        if (changes == null) {
+            Changes newChanges = new Changes();
+            TransactionSynchronizationManager.bindResource(this, newChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    // Before the customer locks are released, so the next holder never sees the undone change
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    assetRepository.upsertAll(newChanges.rows());
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(BalanceStore.this);
+                    if (status != STATUS_COMMITTED) {
+                        newChanges.undos.forEach(Runnable::run);
+                        log.debug("Undid {} balance changes of a rolled back transaction", newChanges.undos.size());
+                    }
+                    newChanges.release();
+                }
+            });
+            changes = newChanges;
+        }
+        changes.add(balances, assetId, undo);
+        return true;
+    }
+
+    private AssetEntity nextVersion(AssetEntity asset) {
+        asset.setVersion(asset.getVersion() == null ? 0L : asset.getVersion() + 1);
+        return copyOf(asset);
+    }
+
+    private static AssetEntity copyOf(AssetEntity asset) {
+        AssetEntity copy = new AssetEntity(asset.getCustomerId(), asset.getAssetName(),
+                asset.getSize(), asset.getUsableSize());
+        copy.setVersion(asset.getVersion());
+        return copy;
+    }
+
+    /**
+     * Balances of one customer, guarded by itself
+     */
+    private static final class Balances {
+        final Map<String, AssetEntity> assets = new HashMap<>();
+        volatile long lastUsed;
+        // Open transactions with changes here; such a customer is never evicted
+        int pending;
+        boolean evicted;
+    }
+
+    /**
+     * Changes of one transaction, used only by its thread
+     */
+    private final class Changes {
+        final Map<Balances, Set<String>> changed = new HashMap<>();
+        final Deque<Runnable> undos = new ArrayDeque<>();
+
+        void add(Balances balances, AssetId assetId, Runnable undo) {
+            if (!changed.containsKey(balances)) {
+                changed.put(balances, new LinkedHashSet<>());
+                // Already under the balances' lock
+                balances.pending++;
+            }
+            changed.get(balances).add(assetId.getAssetName());
+            undos.push(undo);
+        }
+
+        List<AssetEntity> rows() {
+            List<AssetEntity> rows = new ArrayList<>();
+            changed.forEach((balances, assetNames) -> {
+                synchronized (balances) {
+                    assetNames.forEach(assetName -> rows.add(nextVersion(balances.assets.get(assetName))));
+                }
+            });
+            return rows;
+        }
+
+        void release() {
+            changed.keySet().forEach(balances -> {
+                synchronized (balances) {
+                    balances.pending--;
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.CustomerEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of customers by customer ID and by username
+ * Entries expire a fixed time after they were loaded; beyond the maximum size the least
+ * recently used customer is dropped. Callers evict a customer whenever they change it.
+ * The cache keeps its own copies and hands out copies, so no caller can change a cached
+ * customer; a new last login replaces the entry instead.
+ */
+@Component
+@Slf4j
+public class CustomerCache {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Access ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<String, Entry> byCustomerId;
+    private final Map<String, String> customerIdsByUsername = new HashMap<>();
+
+    @Autowired
+    public CustomerCache(@Value("${brokerage.customer-cache.max-size:10000}") int maxSize,
+                         @Value("${brokerage.customer-cache.ttl-ms:30000}") long ttlMillis) {
+        this(maxSize, ttlMillis, System::nanoTime);
+    }
+
+    CustomerCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("Customer cache size and TTL must not be negative");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.clock = clock;
+        this.byCustomerId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= CustomerCache.this.maxSize) {
+                    return false;
+                }
+                customerIdsByUsername.remove(eldest.getValue().customer.getUsername());
+                return true;
+            }
+        };
+    }
+
+    public synchronized Optional<CustomerEntity> getByUsername(String username) {
+        String customerId = customerIdsByUsername.get(username);
+        return customerId == null ? Optional.empty() : getById(customerId);
+    }
+
+    public synchronized Optional<CustomerEntity> getById(String customerId) {
+        Entry entry = byCustomerId.get(customerId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (clock.getAsLong() - entry.expiresAt >= 0) {
+            remove(customerId);
+            return Optional.empty();
+        }
+        return Optional.of(copyOf(entry.customer));
+    }
+
+    public synchronized void put(CustomerEntity customer) {
+        if (maxSize == 0 || ttlNanos == 0) {
+            return;
+        }
+        remove(customer.getCustomerId());
+        byCustomerId.put(customer.getCustomerId(), new Entry(copyOf(customer), clock.getAsLong() + ttlNanos));
+        customerIdsByUsername.put(customer.getUsername(), customer.getCustomerId());
+    }
+
+    /**
+     * Replace a cached customer with a copy carrying the new last login; the TTL is kept
+     */
+    public synchronized void updateLastLogin(String customerId, LocalDateTime lastLoginDate) {
+        Entry entry = byCustomerId.get(customerId);
+        if (entry == null) {
+            return;
+        }
+        CustomerEntity updated = copyOf(entry.customer);
+        updated.setLastLoginDate(lastLoginDate);
+        byCustomerId.put(customerId, new Entry(updated, entry.expiresAt));
+    }
+
+    /**
+     * Drop a customer under either key, e.g. after it was changed
+     */
+    public synchronized void evict(String customerId, String username) {
+        if (customerId != null) {
+            remove(customerId);
+        }
+        if (username != null) {
+            String cachedId = customerIdsByUsername.get(username);
+            if (cachedId != null) {
+                remove(cachedId);
+            }
+        }
+        log.debug("Evicted customer {} ({}) from cache", customerId, username);
+    }
+
+    public synchronized void clear() {
+        byCustomerId.clear();
+        customerIdsByUsername.clear();
+    }
+
+    // Private helper methods
+
+    private void remove(String customerId) {
+        Entry removed = byCustomerId.remove(customerId);
+        if (removed != null) {
+            customerIdsByUsername.remove(removed.customer.getUsername());
+        }
+    }
+
+    private static CustomerEntity copyOf(CustomerEntity customer) {
+        CustomerEntity copy = new CustomerEntity();
+        copy.setCustomerId(customer.getCustomerId());
+        copy.setUsername(customer.getUsername());
+        copy.setPassword(customer.getPassword());
+        copy.setEmail(customer.getEmail());
+        copy.setFirstName(customer.getFirstName());
+        copy.setLastName(customer.getLastName());
+        copy.setActive(customer.isActive());
+        copy.setCreatedDate(customer.getCreatedDate());
+        copy.setLastLoginDate(customer.getLastLoginDate());
+        return copy;
+    }
+
+    private static final class Entry {
+        final CustomerEntity customer;
+        final long expiresAt;
+
+        Entry(CustomerEntity customer, long expiresAt) {
+            this.customer = customer;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package firm.brokerage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks that serialize balance changes of one customer
+ * Orders of different assets run on different sequencer threads but can touch the same
+ * customer's TRY row, so a read-check-write on that row needs the customer's lock.
+ * Customers hash onto a fixed number of stripes; a lock is held until the current
+ * transaction completes, so the next holder reads the committed balance.
+ * Stripes are waited for only in ascending order. A transaction that needs a stripe below one
+ * it already holds (e.g. a counterparty found by matching after its own customer was locked)
+ * waits only briefly and otherwise fails with a retryable CannotAcquireLockException, so two
+ * shards trading between the same customers can never deadlock. A lock not acquired within
+ * the timeout fails the same way.
+ * With striping disabled, lost updates are caught by the asset version column instead and
+ * the command is retried by the sequencer.
+ */
+@Component
+@Slf4j
+public class CustomerLocks {
+
+    private static final long OUT_OF_ORDER_WAIT_MILLIS = 5;
+
+    private final boolean enabled;
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    public CustomerLocks(@Value("${brokerage.locking.striped:true}") boolean enabled,
+                         @Value("${brokerage.locking.stripes:256}") int stripeCount,
+                         @Value("${brokerage.locking.timeout-ms:5000}") long timeoutMillis) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Customer locks need at least one stripe");
+        }
+        this.enabled = enabled;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Lock the customer until the current transaction commits or rolls back
+     */
+    public void lock(String customerId) {
+        lockStripes(Set.of(stripeOf(customerId)));
+    }
+
+    /**
+     * Lock several customers until the current transaction ends, in stripe order so that
+     * two transactions locking overlapping sets cannot deadlock each other
+     */
+    public void lockAll(Collection<String> customerIds) {
+        Set<Integer> stripeIndexes = new TreeSet<>();
+        customerIds.forEach(customerId -> stripeIndexes.add(stripeOf(customerId)));
+        lockStripes(stripeIndexes);
+    }
+
+    // Private helper methods
+
+    private void lockStripes(Set<Integer> stripeIndexes) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Customer locks can only be taken inside a transaction");
+        }
+
+        NavigableSet<Integer> held = heldStripes();
+        for (int index : stripeIndexes) {
+            if (held.contains(index)) {
+                continue;
+            }
+            if (held.isEmpty() || index > held.last()) {
+                acquire(stripes[index]);
+            } else {
+                acquireOutOfOrder(stripes[index]);
+            }
+            held.add(index);
+        }
+    }
+
+    private void acquire(ReentrantLock lock) {
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                // Retried by the sequencer like a busy out-of-order stripe
+                throw new CannotAcquireLockException("Timed out waiting for a customer lock");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a customer lock", e);
+        }
+    }
+
+    private void acquireOutOfOrder(ReentrantLock lock) {
+        try {
+            // The holder may be waiting for a stripe this transaction holds; back off instead
+            if (!lock.tryLock(OUT_OF_ORDER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("Customer lock taken out of stripe order is busy");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a customer lock", e);
+        }
+    }
+
+    /**
+     * Stripes held by the current transaction; released together once it completes
+     */
+    @SuppressWarnings("unchecked")
+    private NavigableSet<Integer> heldStripes() {
+        NavigableSet<Integer> held = (NavigableSet<Integer>) TransactionSynchronizationManager.getResource(this);
+        if (held != null) {
+            return held;
+        }
+
+        NavigableSet<Integer> newlyHeld = new TreeSet<>();
+        TransactionSynchronizationManager.bindResource(this, newlyHeld);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(CustomerLocks.this);
+                newlyHeld.forEach(index -> stripes[index].unlock());
+                log.trace("Released {} customer lock stripes", newlyHeld.size());
+            }
+        });
+        return newlyHeld;
+    }
+
+    private int stripeOf(String customerId) {
+        return Math.floorMod(customerId.hashCode(), stripes.length);
+    }
+}
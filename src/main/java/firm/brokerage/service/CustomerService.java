@@ -8,7 +8,12 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +23,8 @@ public class CustomerService {
 
     private final CustomerRepository customerRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CustomerCache customerCache;
+    private final LastLoginRecorder lastLoginRecorder;
 
     /**
      * Register a new customer
@@ -44,17 +51,22 @@ public class CustomerService {
                 email, firstName, lastName);
 
         CustomerEntity savedCustomer = customerRepository.save(customer);
+        evictFromCache(savedCustomer.getCustomerId(), username);
         log.info("Customer registered successfully: {}", savedCustomer.getCustomerId());
         return savedCustomer;
     }
 
     /**
-     * Find customer by username
+     * Find customer by username, from the cache when it was looked up recently
      */
     @Transactional(readOnly = true)
     public CustomerEntity findByUsername(String username) {
-        return customerRepository.findByUsername(username)
-                .orElseThrow(() -> new CustomerNotFoundException(username, true));
+        return customerCache.getByUsername(username).orElseGet(() -> {
+            CustomerEntity customer = customerRepository.findByUsername(username)
+                    .orElseThrow(() -> new CustomerNotFoundException(username, true));
+            customerCache.put(customer);
+            return customer;
+        });
     }
 
     /**
@@ -62,18 +74,35 @@ public class CustomerService {
      */
     @Transactional(readOnly = true)
     public CustomerEntity findActiveByUsername(String username) {
-        return customerRepository.findByUsernameAndActiveTrue(username)
-                .orElseThrow(() -> new CustomerNotFoundException(username, true));
+        CustomerEntity customer = findByUsername(username);
+        if (!customer.isActive()) {
+            throw new CustomerNotFoundException(username, true);
+        }
+        return customer;
     }
 
     /**
-     * Update last login
+     * Update last login; the time is written in the background with other logins
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void updateLastLogin(String customerId) {
-        CustomerEntity customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new CustomerNotFoundException(customerId));
+        LocalDateTime now = LocalDateTime.now();
+        lastLoginRecorder.record(customerId, now);
+        customerCache.updateLastLogin(customerId, now);
+    }
 
-        customer.updateLastLogin();
-        customerRepository.save(customer);
+    // Private helper methods
+
+    private void evictFromCache(String customerId, String username) {
+        customerCache.evict(customerId, username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Again once the transaction ends, in case a concurrent lookup cached the old row meanwhile
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    customerCache.evict(customerId, username);
+                }
+            });
+        }
     }
 }
@@ -0,0 +1,84 @@
+package firm.brokerage.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import firm.brokerage.dto.AssetResponse;
+import firm.brokerage.dto.OrderResponse;
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.repository.AssetRepository;
+import firm.brokerage.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Newline-delimited JSON exports for reconciliation
+ * Rows are streamed from a database cursor and detached once written, so memory use does not
+ * grow with the number of rows.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private final OrderRepository orderRepository;
+    private final AssetRepository assetRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Write all orders, or those of one customer, oldest first
+     */
+    public long exportOrders(String customerId, OutputStream out) {
+        try (Stream<OrderEntity> orders = customerId == null
+                ? orderRepository.streamAll()
+                : orderRepository.streamByCustomerIdOrderByCreateDateAsc(customerId)) {
+            return writeLines(orders, OrderResponse::fromEntity, out);
+        }
+    }
+
+    /**
+     * Write all assets, or those of one customer
+     */
+    public long exportAssets(String customerId, OutputStream out) {
+        try (Stream<AssetEntity> assets = customerId == null
+                ? assetRepository.streamAll()
+                : assetRepository.streamByCustomerId(customerId)) {
+            return writeLines(assets, AssetResponse::fromEntity, out);
+        }
+    }
+
+    // Private helper methods
+
+    private <T> long writeLines(Stream<T> rows, Function<T, ?> toResponse, OutputStream out) {
+        BufferedOutputStream buffered = new BufferedOutputStream(out);
+        long[] count = {0};
+        try {
+            rows.forEach(row -> {
+                try {
+                    buffered.write(objectMapper.writeValueAsBytes(toResponse.apply(row)));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                entityManager.detach(row);
+                count[0]++;
+            });
+            buffered.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Exported {} rows", count[0]);
+        return count[0];
+    }
+}
@@ -0,0 +1,133 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.JournalCheckpointEntity;
+import firm.brokerage.journal.CommandJournal;
+import firm.brokerage.journal.JournalEntry;
+import firm.brokerage.repository.JournalCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class JournalService {
+
+    private final CommandJournal commandJournal;
+    private final JournalCheckpointRepository checkpointRepository;
+
+    /**
+     * Journal a command that has just been applied
+     * The asset's checkpoint moves in the caller's transaction, together with the command's effects.
+     * If that transaction does not commit, an abort entry voids the command before the caller sees the error.
+     */
+    public void record(JournalEntry entry) {
+        if (!commandJournal.isEnabled()) {
+            return;
+        }
+
+        // Surface version conflicts before anything is on disk, so a retried command is rarely aborted
+        checkpointRepository.flush();
+        long sequence = append(entry);
+        checkpoint(entry.getAssetName(), sequence);
+        log.debug("Journaled {} of order {} at sequence {}", entry.getType(), entry.getOrderId(), sequence);
+    }
+
+    /**
+     * Journal several commands that have just been applied
+     * The checkpoint of each asset is written once, at its last entry
+     */
+    public void recordAll(List<JournalEntry> entries) {
+        if (!commandJournal.isEnabled() || entries.isEmpty()) {
+            return;
+        }
+
+        checkpointRepository.flush();
+        Map<String, Long> lastSequences = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            lastSequences.put(entry.getAssetName(), append(entry));
+        }
+        lastSequences.forEach(this::checkpoint);
+        log.debug("Journaled {} commands up to sequence {}", entries.size(), commandJournal.getLastSequence());
+    }
+
+    /**
+     * Mark a replayed command as applied
+     */
+    public void checkpoint(String assetName, long sequence) {
+        checkpointRepository.save(new JournalCheckpointEntity(assetName, sequence));
+    }
+
+    /**
+     * Wait until everything journaled so far is on disk (group commit)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void awaitDurable() {
+        if (commandJournal.isEnabled()) {
+            commandJournal.awaitDurable(commandJournal.getLastSequence());
+        }
+    }
+
+    /**
+     * Last applied sequence per asset
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Long> getCheckpoints() {
+        return checkpointRepository.findAll().stream()
+                .collect(Collectors.toMap(JournalCheckpointEntity::getAssetName, JournalCheckpointEntity::getLastSequence));
+    }
+
+    // Private helper methods
+
+    /**
+     * Append an entry and remember it, so it is aborted if the transaction rolls back
+     */
+    @SuppressWarnings("unchecked")
+    private long append(JournalEntry entry) {
+        long sequence = commandJournal.append(entry);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return sequence;
+        }
+
+        Map<Long, JournalEntry> appended = (Map<Long, JournalEntry>) TransactionSynchronizationManager.getResource(this);
+        if (appended == null) {
+            Map<Long, JournalEntry> newAppended = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, newAppended);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(JournalService.this);
+                    if (status != STATUS_COMMITTED) {
+                        abort(newAppended);
+                    }
+                }
+            });
+            appended = newAppended;
+        }
+        appended.put(sequence, entry);
+        return sequence;
+    }
+
+    /**
+     * Void entries whose transaction did not commit and wait until that is on disk,
+     * so recovery never replays a command the client was told had failed
+     */
+    private void abort(Map<Long, JournalEntry> appended) {
+        long lastAbort = 0;
+        for (Map.Entry<Long, JournalEntry> aborted : appended.entrySet()) {
+            lastAbort = commandJournal.append(JournalEntry.abort(aborted.getValue(), aborted.getKey()));
+        }
+        commandJournal.awaitDurable(lastAbort);
+        log.warn("Aborted journal entries {} of a rolled back transaction", appended.keySet());
+    }
+}
@@ -0,0 +1,86 @@
+package firm.brokerage.service;
+
+import firm.brokerage.repository.CustomerRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Last login times collected in memory and written in one batch every flush interval
+ * Logins of the same customer between two flushes collapse into one row update.
+ */
+@Component
+@Slf4j
+public class LastLoginRecorder {
+
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(CustomerRepository customerRepository, PlatformTransactionManager transactionManager) {
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Remember a login; only the latest time per customer is written
+     */
+    public void record(String customerId, LocalDateTime loginDate) {
+        pending.merge(customerId, loginDate, LastLoginRecorder::latest);
+    }
+
+    /**
+     * Write every pending login time in one batch and transaction
+     * On failure the times are kept for the next flush unless a newer login replaced them.
+     */
+    public synchronized void flush() {
+        Map<String, LocalDateTime> batch = new HashMap<>();
+        pending.forEach((customerId, loginDate) -> {
+            if (pending.remove(customerId, loginDate)) {
+                batch.put(customerId, loginDate);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> customerRepository.updateLastLoginDates(batch));
+        } catch (RuntimeException e) {
+            batch.forEach((customerId, loginDate) -> pending.merge(customerId, loginDate, LastLoginRecorder::latest));
+            throw e;
+        }
+        log.debug("Recorded last login of {} customers", batch.size());
+    }
+
+    /**
+     * Flush in the background every interval
+     */
+    @Scheduled(fixedDelayString = "${brokerage.last-login.flush-interval-ms:1000}")
+    public void flushScheduled() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Last login flush failed, {} customers left to write", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flushScheduled();
+    }
+
+    // Private helper methods
+
+    private static LocalDateTime latest(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+}
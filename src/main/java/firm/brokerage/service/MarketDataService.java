@@ -0,0 +1,217 @@
+package firm.brokerage.service;
+
+import firm.brokerage.dto.DepthLevel;
+import firm.brokerage.dto.MarketDataEvent;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.matching.FixedPoint;
+import firm.brokerage.matching.OrderBook;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Best bid and ask and aggregated depth of every order book, published as numbered deltas
+ * Matching publishes a book after each committed change, and only the levels that differ from
+ * the last published depth go out. Each asset keeps its recent deltas, so a subscriber that
+ * comes back with the last sequence it saw gets what it missed, or a fresh snapshot once that
+ * is no longer retained. Sequences restart at every start of the application, so they are only
+ * resumed within the same epoch. Events are delivered on one dispatcher thread, never on a sequencer.
+ */
+@Service
+@Slf4j
+public class MarketDataService {
+
+    private final int depthLevels;
+    private final int retainedUpdates;
+    private final long streamTimeoutMs;
+    private final Executor dispatcher;
+    private final String epoch;
+    private final Map<String, Feed> feeds = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MarketDataService(@Value("${brokerage.market-data.depth-levels:10}") int depthLevels,
+                             @Value("${brokerage.market-data.retained-updates:1000}") int retainedUpdates,
+                             @Value("${brokerage.market-data.stream-timeout-ms:1800000}") long streamTimeoutMs) {
+        this(depthLevels, retainedUpdates, streamTimeoutMs, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "market-data");
+            thread.setDaemon(true);
+            return thread;
+        }), Long.toHexString(ThreadLocalRandom.current().nextLong()));
+    }
+
+    MarketDataService(int depthLevels, int retainedUpdates, long streamTimeoutMs, Executor dispatcher, String epoch) {
+        if (depthLevels < 1 || retainedUpdates < 0) {
+            throw new IllegalArgumentException("Market data depth must be positive and retained updates not negative");
+        }
+        this.depthLevels = depthLevels;
+        this.retainedUpdates = retainedUpdates;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.dispatcher = dispatcher;
+        this.epoch = epoch;
+    }
+
+    /**
+     * How long a market data stream stays open before the client has to reconnect
+     */
+    public long getStreamTimeoutMs() {
+        return streamTimeoutMs;
+    }
+
+    /**
+     * Publish what changed in a book since it was last published
+     * Must run on the asset's sequencer thread once the change is committed.
+     */
+    public void publish(OrderBook book) {
+        feedOf(book.getAssetName()).publish(book);
+    }
+
+    /**
+     * Deliver an asset's market data to a listener, resuming after the given epoch and sequence if possible
+     * Retained deltas after that sequence are replayed; otherwise, without a sequence, or if the
+     * epoch is not the current one, the listener starts from a snapshot. A listener that throws is
+     * unsubscribed. Returns the action that ends the subscription.
+     */
+    public Runnable subscribe(String assetName, String afterEpoch, Long afterSequence, Consumer<MarketDataEvent> listener) {
+        Feed feed = feedOf(assetName);
+        feed.subscribe(epoch.equals(afterEpoch) ? afterSequence : null, listener);
+        return () -> feed.unsubscribe(listener);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    // Private helper methods
+
+    private Feed feedOf(String assetName) {
+        return feeds.computeIfAbsent(assetName, Feed::new);
+    }
+
+    /**
+     * Published state and subscribers of one asset, guarded by itself
+     */
+    private final class Feed {
+
+        private final String assetName;
+        private final Deque<MarketDataEvent> recent = new ArrayDeque<>();
+        private final List<Consumer<MarketDataEvent>> listeners = new ArrayList<>();
+        private Map<Long, Long> bids = Map.of();
+        private Map<Long, Long> asks = Map.of();
+        private int quantityScale = FixedPoint.MAX_SCALE;
+        private long sequence;
+
+        Feed(String assetName) {
+            this.assetName = assetName;
+        }
+
+        synchronized void publish(OrderBook book) {
+            Map<Long, Long> newBids = book.depth(OrderSide.BUY, depthLevels);
+            Map<Long, Long> newAsks = book.depth(OrderSide.SELL, depthLevels);
+            quantityScale = book.getQuantityScale();
+
+            List<DepthLevel> bidChanges = changes(bids, newBids);
+            List<DepthLevel> askChanges = changes(asks, newAsks);
+            if (bidChanges.isEmpty() && askChanges.isEmpty()) {
+                return;
+            }
+
+            bids = newBids;
+            asks = newAsks;
+            sequence++;
+            MarketDataEvent delta = event(MarketDataEvent.Type.DELTA, bidChanges, askChanges);
+            recent.addLast(delta);
+            if (recent.size() > retainedUpdates) {
+                recent.removeFirst();
+            }
+
+            // Listeners taken now, so one subscribing later never gets this delta on top of its snapshot
+            List<Consumer<MarketDataEvent>> targets = List.copyOf(listeners);
+            if (!targets.isEmpty()) {
+                dispatcher.execute(() -> targets.forEach(listener -> deliver(listener, List.of(delta))));
+            }
+        }
+
+        synchronized void subscribe(Long afterSequence, Consumer<MarketDataEvent> listener) {
+            List<MarketDataEvent> initial;
+            if (afterSequence != null && canResumeAfter(afterSequence)) {
+                initial = recent.stream().filter(event -> event.getSequence() > afterSequence).toList();
+            } else {
+                initial = List.of(event(MarketDataEvent.Type.SNAPSHOT, levels(bids), levels(asks)));
+            }
+            listeners.add(listener);
+            dispatcher.execute(() -> deliver(listener, initial));
+            log.debug("Market data subscriber added to {} at sequence {}", assetName, sequence);
+        }
+
+        synchronized void unsubscribe(Consumer<MarketDataEvent> listener) {
+            listeners.remove(listener);
+        }
+
+        private boolean canResumeAfter(long afterSequence) {
+            long oldestRetained = recent.isEmpty() ? sequence + 1 : recent.peekFirst().getSequence();
+            return afterSequence <= sequence && afterSequence >= oldestRetained - 1;
+        }
+
+        private void deliver(Consumer<MarketDataEvent> listener, List<MarketDataEvent> events) {
+            try {
+                events.forEach(listener);
+            } catch (RuntimeException e) {
+                log.debug("Dropping market data subscriber of {}: {}", assetName, e.getMessage());
+                unsubscribe(listener);
+            }
+        }
+
+        private MarketDataEvent event(MarketDataEvent.Type type, List<DepthLevel> bidLevels, List<DepthLevel> askLevels) {
+            return new MarketDataEvent(assetName, epoch, sequence, type, best(bids), best(asks), bidLevels, askLevels);
+        }
+
+        private List<DepthLevel> changes(Map<Long, Long> previous, Map<Long, Long> current) {
+            List<DepthLevel> changes = new ArrayList<>();
+            current.forEach((price, size) -> {
+                if (!size.equals(previous.get(price))) {
+                    changes.add(level(price, size));
+                }
+            });
+            // Levels that emptied or dropped out of the published depth
+            previous.keySet().forEach(price -> {
+                if (!current.containsKey(price)) {
+                    changes.add(level(price, 0L));
+                }
+            });
+            return changes;
+        }
+
+        private List<DepthLevel> levels(Map<Long, Long> depth) {
+            List<DepthLevel> levels = new ArrayList<>();
+            depth.forEach((price, size) -> levels.add(level(price, size)));
+            return levels;
+        }
+
+        private DepthLevel level(long price, long size) {
+            return new DepthLevel(FixedPoint.toDecimal(price, FixedPoint.PRICE_SCALE),
+                    FixedPoint.toDecimal(size, quantityScale));
+        }
+
+        private BigDecimal best(Map<Long, Long> depth) {
+            return depth.isEmpty() ? null : FixedPoint.toDecimal(depth.keySet().iterator().next(), FixedPoint.PRICE_SCALE);
+        }
+    }
+}
@@ -1,13 +1,36 @@
 package firm.brokerage.service;
 
+import firm.brokerage.config.MatchingProperties;
 import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.entity.TradeEntity;
+import firm.brokerage.exception.AssetNotFoundException;
 import firm.brokerage.exception.InvalidOrderStatusException;
 import firm.brokerage.exception.OrderNotFoundException;
+import firm.brokerage.journal.JournalEntry;
+import firm.brokerage.matching.BookOrder;
+import firm.brokerage.matching.Fill;
+import firm.brokerage.matching.OrderBook;
+import firm.brokerage.matching.OrderSequencer;
+import firm.brokerage.matching.SweepResult;
 import firm.brokerage.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -17,34 +40,362 @@ public class MatchingService {
 
     private final OrderRepository orderRepository;
     private final AssetService assetService;
+    private final OrderSequencer orderSequencer;
+    private final JournalService journalService;
+    private final MatchingProperties matchingProperties;
+    private final TradeService tradeService;
+    private final MarketDataService marketDataService;
+    private final OrderEventService orderEventService;
+    private final CustomerLocks customerLocks;
+
+    // One book per asset, loaded lazily from the open orders of that asset.
+    // A book is only touched from its asset's sequencer thread, so it needs no locking.
+    private final Map<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
+
+    /**
+     * Match an incoming order against the resting orders of its asset
+     * Every fill is settled on both sides and recorded as a trade; any unfilled size rests in the book.
+     * An order that would trade with a resting order of its own customer is canceled instead, with its
+     * unfilled size released. Must run on the asset's sequencer thread.
+     */
+    public void submitOrder(OrderEntity order) {
+        OrderBook book = getOrderBook(order.getAssetName());
+        evictOnRollback(book);
+
+        BookOrder incoming = BookOrder.from(order, book.getQuantityScale());
+        List<Fill> fills = book.match(incoming);
+
+        // Both sides of every fill are locked up front, in stripe order, before any balance moves
+        if (!fills.isEmpty()) {
+            Set<String> customerIds = new LinkedHashSet<>();
+            customerIds.add(order.getCustomerId());
+            fills.forEach(fill -> customerIds.add(fill.getRestingOrder().getCustomerId()));
+            customerLocks.lockAll(customerIds);
+        }
+
+        List<TradeEntity> trades = new ArrayList<>();
+        for (Fill fill : fills) {
+            trades.add(settle(order, fill));
+        }
+        tradeService.recordTrades(trades);
+
+        if (incoming.isSelfTradeCanceled()) {
+            cancelSelfTrade(order);
+        } else if (incoming.hasRemaining()) {
+            book.add(incoming);
+            log.debug("Order {} resting in {} book with {} remaining",
+                    order.getOrderId(), order.getAssetName(), order.getRemainingSize());
+        }
+        publishOnCommit(book);
+    }
+
+    /**
+     * Load the asset's book if it is not loaded yet
+     * Call before inserting orders that are submitted afterwards, so they are not loaded twice.
+     * Must run on the asset's sequencer thread.
+     */
+    public void prepareOrderBook(String assetName) {
+        evictOnRollback(getOrderBook(assetName));
+    }
+
+    /**
+     * Remove an open order from its book before it is canceled or matched by an admin
+     * Returns false if the book no longer holds the order.
+     * Must run on the asset's sequencer thread.
+     */
+    public boolean withdrawOrder(OrderEntity order) {
+        OrderBook book = orderBooks.get(order.getAssetName());
+        if (book == null) {
+            // Book not loaded yet; it will be built from the committed order state
+            return true;
+        }
+
+        evictOnRollback(book);
+        if (book.remove(order.getOrderId()).isEmpty()) {
+            return false;
+        }
+        publishOnCommit(book);
+        return true;
+    }
+
+    /**
+     * Load the asset's book if it is not loaded yet, so its market data is published
+     * An asset that was never ordered is rejected before any book, feed or load is created for it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void openMarketData(String assetName) {
+        if (!orderBooks.containsKey(assetName) && !orderRepository.existsByAssetName(assetName)) {
+            throw new AssetNotFoundException("No market data for asset " + assetName);
+        }
+        orderSequencer.execute(assetName, () -> getOrderBook(assetName));
+    }
 
     /**
      * Match a pending order (Admin function)
+     * Runs on the asset's sequencer thread, which owns the transaction
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderEntity matchOrder(String orderId) {
         log.info("Matching order: {}", orderId);
 
+        String assetName = orderRepository.findById(orderId)
+                .map(OrderEntity::getAssetName)
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
+
+        OrderEntity matchedOrder = orderSequencer.execute(assetName, () -> {
+            OrderEntity order = matchOnBook(orderId);
+            journalService.record(JournalEntry.match(order));
+            return order;
+        });
+        journalService.awaitDurable();
+        return matchedOrder;
+    }
+
+    /**
+     * Re-apply a journaled admin match during recovery
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void replayMatch(JournalEntry entry) {
+        orderSequencer.execute(entry.getAssetName(), () -> {
+            matchOnBook(entry.getOrderId());
+            journalService.checkpoint(entry.getAssetName(), entry.getSequence());
+            return null;
+        });
+    }
+
+    /**
+     * Cross all open orders of an asset in one pass (Admin function)
+     * The open orders are loaded once and re-entered into a fresh book in arrival order, so
+     * orders that rest crossed (e.g. loaded from before matching was enabled) trade with each
+     * other. Balance changes of all trades are summed so each asset row is written once.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SweepResult sweep(String assetName) {
+        log.info("Sweeping {} book", assetName);
+
+        SweepResult result = orderSequencer.execute(assetName, () -> {
+            SweepResult sweepResult = sweepOnBook(assetName);
+            journalService.record(JournalEntry.sweep(assetName));
+            return sweepResult;
+        });
+        journalService.awaitDurable();
+        return result;
+    }
+
+    /**
+     * Re-apply a journaled sweep during recovery
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void replaySweep(JournalEntry entry) {
+        orderSequencer.execute(entry.getAssetName(), () -> {
+            sweepOnBook(entry.getAssetName());
+            journalService.checkpoint(entry.getAssetName(), entry.getSequence());
+            return null;
+        });
+    }
+
+    // Private helper methods
+
+    private OrderEntity matchOnBook(String orderId) {
         OrderEntity order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
-        if (!order.canBeMatched()) {
+        if (!order.canBeMatched() || !withdrawOrder(order)) {
             throw new InvalidOrderStatusException(orderId, order.getStatus(), "match");
         }
 
-        // Process the asset transfers
+        // Process the asset transfers for what is left unfilled
         assetService.processMatchedOrder(
                 order.getCustomerId(),
                 order.getAssetName(),
                 order.getOrderSide(),
-                order.getSize(),
+                order.getRemainingSize(),
                 order.getPrice()
         );
 
         // Mark order as matched
         order.match();
         OrderEntity matchedOrder = orderRepository.save(order);
+        orderEventService.publish(matchedOrder);
 
         log.info("Order {} matched successfully", orderId);
         return matchedOrder;
     }
+
+    private SweepResult sweepOnBook(String assetName) {
+        OrderBook book = new OrderBook(assetName, matchingProperties.quantityScale(assetName));
+        SettlementBatch settlement = new SettlementBatch();
+        Map<String, OrderEntity> ordersById = new HashMap<>();
+        Map<String, OrderEntity> filledOrders = new LinkedHashMap<>();
+        List<OrderEntity> canceledOrders = new ArrayList<>();
+        List<TradeEntity> trades = new ArrayList<>();
+
+        for (OrderEntity order : orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc(assetName, OrderStatus.OPEN)) {
+            ordersById.put(order.getOrderId(), order);
+            BookOrder incoming = BookOrder.from(order, book.getQuantityScale());
+
+            for (Fill fill : book.match(incoming)) {
+                OrderEntity resting = ordersById.get(fill.getRestingOrder().getOrderId());
+                BigDecimal fillSize = fill.sizeAsDecimal();
+                BigDecimal fillPrice = fill.priceAsDecimal();
+
+                settlement.addFill(order.getCustomerId(), assetName, order.getOrderSide(), fillSize, order.getPrice(), fillPrice);
+                settlement.addFill(resting.getCustomerId(), assetName, resting.getOrderSide(), fillSize, resting.getPrice(), fillPrice);
+                order.fill(fillSize);
+                resting.fill(fillSize);
+                filledOrders.put(order.getOrderId(), order);
+                filledOrders.put(resting.getOrderId(), resting);
+                trades.add(TradeEntity.between(order, resting, fillPrice, fillSize));
+            }
+
+            if (incoming.isSelfTradeCanceled()) {
+                canceledOrders.add(order);
+            } else if (incoming.hasRemaining()) {
+                book.add(incoming);
+            }
+        }
+
+        // The swept book replaces the live one; on rollback both are dropped and rebuilt
+        orderBooks.put(assetName, book);
+        evictOnRollback(book);
+        publishOnCommit(book);
+
+        // Every customer whose balances change is locked up front, in stripe order
+        Set<String> customerIds = new LinkedHashSet<>();
+        settlement.getAssetIds().forEach(assetId -> customerIds.add(assetId.getCustomerId()));
+        canceledOrders.forEach(order -> customerIds.add(order.getCustomerId()));
+        if (!customerIds.isEmpty()) {
+            customerLocks.lockAll(customerIds);
+        }
+
+        assetService.applySettlement(settlement);
+        canceledOrders.forEach(this::cancelSelfTrade);
+        orderRepository.saveAll(filledOrders.values());
+        if (!canceledOrders.isEmpty()) {
+            orderRepository.saveAll(canceledOrders);
+        }
+        filledOrders.values().forEach(orderEventService::publish);
+        canceledOrders.forEach(orderEventService::publish);
+        tradeService.recordTrades(trades);
+
+        log.info("Swept {} book: {} trades, {} orders filled, {} canceled to prevent self-trades",
+                assetName, trades.size(), filledOrders.size(), canceledOrders.size());
+        return new SweepResult(assetName, trades.size(), List.copyOf(filledOrders.values()));
+    }
+
+    /**
+     * Cancel an order stopped by self-trade prevention and release what its unfilled size reserved
+     */
+    private void cancelSelfTrade(OrderEntity order) {
+        assetService.releaseAssetsForOrder(
+                order.getCustomerId(),
+                order.getAssetName(),
+                order.getOrderSide(),
+                order.getRemainingSize(),
+                order.getPrice()
+        );
+        order.cancel();
+        log.info("Order {} canceled to prevent a self-trade, {} of {} filled",
+                order.getOrderId(), order.getFilledSize(), order.getSize());
+    }
+
+    private OrderBook getOrderBook(String assetName) {
+        return orderBooks.computeIfAbsent(assetName, this::loadOrderBook);
+    }
+
+    private OrderBook loadOrderBook(String assetName) {
+        OrderBook book = new OrderBook(assetName, matchingProperties.quantityScale(assetName));
+        orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc(assetName, OrderStatus.OPEN)
+                .forEach(order -> book.add(BookOrder.from(order, book.getQuantityScale())));
+        publishOnCommit(book);
+
+        log.info("Loaded {} book with {} resting orders", assetName, book.size());
+        return book;
+    }
+
+    private TradeEntity settle(OrderEntity incoming, Fill fill) {
+        String restingOrderId = fill.getRestingOrder().getOrderId();
+        OrderEntity resting = orderRepository.findById(restingOrderId)
+                .orElseThrow(() -> new OrderNotFoundException(restingOrderId));
+
+        // Leave fixed-point for the entities once per fill
+        BigDecimal fillSize = fill.sizeAsDecimal();
+        BigDecimal fillPrice = fill.priceAsDecimal();
+
+        assetService.processMatchedOrder(
+                incoming.getCustomerId(),
+                incoming.getAssetName(),
+                incoming.getOrderSide(),
+                fillSize,
+                incoming.getPrice(),
+                fillPrice
+        );
+        assetService.processMatchedOrder(
+                resting.getCustomerId(),
+                resting.getAssetName(),
+                resting.getOrderSide(),
+                fillSize,
+                resting.getPrice(),
+                fillPrice
+        );
+
+        incoming.fill(fillSize);
+        resting.fill(fillSize);
+        orderRepository.save(resting);
+        orderEventService.publish(resting);
+
+        log.info("Order {} filled against order {} - {} {} at {}",
+                incoming.getOrderId(), restingOrderId, fillSize, incoming.getAssetName(), fillPrice);
+        return TradeEntity.between(incoming, resting, fillPrice, fillSize);
+    }
+
+    /**
+     * Publish the market data of a changed book once the transaction commits
+     * Each book is published once per transaction, however many orders it touched.
+     */
+    @SuppressWarnings("unchecked")
+    private void publishOnCommit(OrderBook book) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            marketDataService.publish(book);
+            return;
+        }
+
+        Set<OrderBook> books = (Set<OrderBook>) TransactionSynchronizationManager.getResource(marketDataService);
+        if (books == null) {
+            Set<OrderBook> newBooks = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(marketDataService, newBooks);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    newBooks.forEach(marketDataService::publish);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(marketDataService);
+                }
+            });
+            books = newBooks;
+        }
+        books.add(book);
+    }
+
+    /**
+     * The book is changed before the transaction commits, so drop it on rollback;
+     * it is rebuilt from the committed orders on next use.
+     */
+    private void evictOnRollback(OrderBook book) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED && orderBooks.remove(book.getAssetName(), book)) {
+                    log.warn("Evicted {} book after rolled back transaction", book.getAssetName());
+                }
+            }
+        });
+    }
 }
@@ -0,0 +1,255 @@
+package firm.brokerage.service;
+
+import firm.brokerage.dto.OrderEvent;
+import firm.brokerage.dto.OrderResponse;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Order state changes pushed to the customer's open connections
+ * An order is published once its transaction commits, in its final state of that transaction.
+ * Every connection starts with a snapshot of the customer's open orders and then gets updates
+ * through its own bounded buffer, drained on a small dispatcher pool. A connection that falls
+ * a full buffer behind loses its buffered updates and gets a fresh snapshot instead, so a slow
+ * client never holds up matching or grows memory.
+ */
+@Service
+@Slf4j
+public class OrderEventService {
+
+    private final OrderRepository orderRepository;
+    private final int bufferSize;
+    private final long streamTimeoutMs;
+    private final Executor dispatcher;
+
+    // Customer ID to open connections
+    private final Map<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    @Autowired
+    public OrderEventService(OrderRepository orderRepository,
+                             @Value("${brokerage.order-events.buffer-size:256}") int bufferSize,
+                             @Value("${brokerage.order-events.dispatch-threads:2}") int dispatchThreads,
+                             @Value("${brokerage.order-events.stream-timeout-ms:1800000}") long streamTimeoutMs) {
+        this(orderRepository, bufferSize, streamTimeoutMs, Executors.newFixedThreadPool(dispatchThreads, dispatcherThreads()));
+    }
+
+    OrderEventService(OrderRepository orderRepository, int bufferSize, long streamTimeoutMs, Executor dispatcher) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Order event buffer size must be positive");
+        }
+        this.orderRepository = orderRepository;
+        this.bufferSize = bufferSize;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * How long an order event stream stays open before the client has to reconnect
+     */
+    public long getStreamTimeoutMs() {
+        return streamTimeoutMs;
+    }
+
+    /**
+     * Push the order's state to its customer once the current transaction commits
+     * Publishing an order several times in one transaction sends only its final state.
+     */
+    @SuppressWarnings("unchecked")
+    public void publish(OrderEntity order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deliver(order);
+            return;
+        }
+
+        Map<String, OrderEntity> orders = (Map<String, OrderEntity>) TransactionSynchronizationManager.getResource(this);
+        if (orders == null) {
+            Map<String, OrderEntity> newOrders = new LinkedHashMap<>();
+            TransactionSynchronizationManager.bindResource(this, newOrders);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    newOrders.values().forEach(OrderEventService.this::deliver);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(OrderEventService.this);
+                }
+            });
+            orders = newOrders;
+        }
+        orders.put(order.getOrderId(), order);
+    }
+
+    /**
+     * Stream a customer's order events to a listener, starting with a snapshot
+     * A listener that throws is unsubscribed. Returns the action that ends the subscription.
+     */
+    public Runnable subscribe(String customerId, Consumer<OrderEvent> listener) {
+        Connection connection = new Connection(customerId, listener);
+        connections.computeIfAbsent(customerId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        connection.requestSnapshot();
+        log.debug("Order event subscriber added for customer {}", customerId);
+        return connection::close;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (dispatcher instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+
+    // Private helper methods
+
+    private static ThreadFactory dispatcherThreads() {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "order-events-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void deliver(OrderEntity order) {
+        Set<Connection> customerConnections = connections.get(order.getCustomerId());
+        if (customerConnections == null || customerConnections.isEmpty()) {
+            return;
+        }
+        OrderResponse update = OrderResponse.fromEntity(order);
+        customerConnections.forEach(connection -> connection.offer(update));
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.customerId, (customerId, customerConnections) -> {
+            customerConnections.remove(connection);
+            return customerConnections.isEmpty() ? null : customerConnections;
+        });
+    }
+
+    /**
+     * One subscriber and its bounded buffer, guarded by itself
+     * At most one dispatcher thread drains a connection at a time, so its events stay in order.
+     */
+    private final class Connection {
+
+        private final String customerId;
+        private final Consumer<OrderEvent> listener;
+        private final Deque<OrderResponse> buffer = new ArrayDeque<>();
+        private boolean snapshotPending;
+        private boolean draining;
+        private boolean closed;
+
+        Connection(String customerId, Consumer<OrderEvent> listener) {
+            this.customerId = customerId;
+            this.listener = listener;
+        }
+
+        void offer(OrderResponse update) {
+            synchronized (this) {
+                if (closed || snapshotPending) {
+                    // A pending snapshot is read after this commit, so it already covers the update
+                    return;
+                }
+                if (buffer.size() < bufferSize) {
+                    buffer.addLast(update);
+                } else {
+                    log.debug("Customer {} fell {} order events behind, resending a snapshot", customerId, bufferSize);
+                    buffer.clear();
+                    snapshotPending = true;
+                }
+            }
+            scheduleDrain();
+        }
+
+        void requestSnapshot() {
+            synchronized (this) {
+                buffer.clear();
+                snapshotPending = true;
+            }
+            scheduleDrain();
+        }
+
+        void close() {
+            synchronized (this) {
+                closed = true;
+                buffer.clear();
+            }
+            remove(this);
+        }
+
+        private void scheduleDrain() {
+            synchronized (this) {
+                if (draining || closed) {
+                    return;
+                }
+                draining = true;
+            }
+            dispatcher.execute(this::drain);
+        }
+
+        private void drain() {
+            while (true) {
+                OrderEvent event;
+                synchronized (this) {
+                    if (closed) {
+                        draining = false;
+                        return;
+                    }
+                    if (snapshotPending) {
+                        snapshotPending = false;
+                        event = null;
+                    } else {
+                        OrderResponse update = buffer.pollFirst();
+                        if (update == null) {
+                            draining = false;
+                            return;
+                        }
+                        event = new OrderEvent(OrderEvent.Type.UPDATE, List.of(update));
+                    }
+                }
+
+                try {
+                    listener.accept(event != null ? event : snapshot());
+                } catch (RuntimeException e) {
+                    log.debug("Dropping order event subscriber of customer {}: {}", customerId, e.getMessage());
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    close();
+                    return;
+                }
+            }
+        }
+
+        private OrderEvent snapshot() {
+            List<OrderResponse> openOrders = orderRepository
+                    .findByCustomerIdAndStatusInOrderByCreateDateAsc(customerId, OrderStatus.OPEN).stream()
+                    .map(OrderResponse::fromEntity)
+                    .toList();
+            return new OrderEvent(OrderEvent.Type.SNAPSHOT, openOrders);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.OrderEntity;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of a customer's order history and the cursor of the next page, null on the last one
+ */
+@Value
+public class OrderPage {
+    List<OrderEntity> orders;
+    String nextCursor;
+}
@@ -1,18 +1,31 @@
 package firm.brokerage.service;
 
+import firm.brokerage.dto.BatchOrderResult;
 import firm.brokerage.dto.CreateOrderRequest;
+import firm.brokerage.dto.OrderResponse;
 import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.OrderStatus;
 import firm.brokerage.exception.InvalidOrderStatusException;
 import firm.brokerage.exception.OrderNotFoundException;
+import firm.brokerage.journal.JournalEntry;
+import firm.brokerage.matching.OrderSequencer;
 import firm.brokerage.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -22,36 +35,89 @@ public class OrderService {
 
     private final OrderRepository orderRepository;
     private final AssetService assetService;
+    private final MatchingService matchingService;
+    private final OrderSequencer orderSequencer;
+    private final JournalService journalService;
+    private final OrderEventService orderEventService;
+
+    static final int MAX_PAGE_SIZE = 500;
 
     /**
      * Create a new order
+     * Runs on the asset's sequencer thread, which owns the transaction;
+     * returns once the command is journaled to disk
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public OrderEntity createOrder(CreateOrderRequest request) {
         log.info("Creating {} order for customer {} - {} {} at {}",
                 request.getOrderSide(), request.getCustomerId(),
                 request.getSize(), request.getAssetName(), request.getPrice());
 
-        // Reserve assets before creating order
-        assetService.reserveAssetsForOrder(
-                request.getCustomerId(),
-                request.getAssetName(),
-                request.getOrderSide(),
-                request.getSize(),
-                request.getPrice()
-        );
+        // Built inside the command so a retried attempt starts from a fresh order
+        OrderEntity placedOrder = orderSequencer.execute(request.getAssetName(), () -> {
+            OrderEntity order = new OrderEntity(
+                    request.getCustomerId(),
+                    request.getAssetName(),
+                    request.getOrderSide(),
+                    request.getSize(),
+                    request.getPrice()
+            );
+            OrderEntity savedOrder = placeOrder(order);
+            journalService.record(JournalEntry.create(savedOrder));
+            return savedOrder;
+        });
+        journalService.awaitDurable();
+        return placedOrder;
+    }
 
-        // Create and save order
-        OrderEntity order = new OrderEntity(
-                request.getCustomerId(),
-                request.getAssetName(),
-                request.getOrderSide(),
-                request.getSize(),
-                request.getPrice()
-        );
+    /**
+     * Create a batch of orders
+     * Orders are grouped by asset; each group is placed in one transaction on its asset's
+     * sequencer, with reservations summed per customer and the rows inserted in one JDBC batch.
+     * A rejected order is reported in its result and does not affect the rest of the batch.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<BatchOrderResult> createOrders(List<CreateOrderRequest> requests) {
+        log.info("Creating batch of {} orders", requests.size());
 
-        OrderEntity savedOrder = orderRepository.save(order);
-        log.info("Order created successfully: {}", savedOrder.getOrderId());
-        return savedOrder;
+        Map<String, Map<Integer, CreateOrderRequest>> requestsByAsset = new LinkedHashMap<>();
+        for (int index = 0; index < requests.size(); index++) {
+            CreateOrderRequest request = requests.get(index);
+            requestsByAsset.computeIfAbsent(request.getAssetName(), asset -> new LinkedHashMap<>())
+                    .put(index, request);
+        }
+
+        // Groups of different assets run on their own sequencers in parallel
+        Map<String, CompletableFuture<List<BatchOrderResult>>> placements = new LinkedHashMap<>();
+        requestsByAsset.forEach((assetName, assetRequests) ->
+                placements.put(assetName, orderSequencer.submit(assetName, () -> placeBatch(assetRequests))));
+
+        BatchOrderResult[] results = new BatchOrderResult[requests.size()];
+        placements.forEach((assetName, placement) -> {
+            try {
+                placement.join().forEach(result -> results[result.getIndex()] = result);
+            } catch (CompletionException e) {
+                String error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                log.warn("Batch group of {} failed: {}", assetName, error);
+                requestsByAsset.get(assetName).keySet()
+                        .forEach(index -> results[index] = BatchOrderResult.rejected(index, error));
+            }
+        });
+
+        journalService.awaitDurable();
+        return List.of(results);
+    }
+
+    /**
+     * Re-apply a journaled order creation during recovery
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void replayCreate(JournalEntry entry) {
+        orderSequencer.execute(entry.getAssetName(), () -> {
+            placeOrder(entry.toOrder());
+            journalService.checkpoint(entry.getAssetName(), entry.getSequence());
+            return null;
+        });
     }
 
     /**
@@ -72,33 +138,98 @@ public class OrderService {
         return orderRepository.findByCustomerIdAndDateRange(customerId, startDate, endDate);
     }
 
+    /**
+     * Page through a customer's orders, newest first, optionally of one status and asset
+     * The cursor is opaque to clients: the position of the last order already returned,
+     * so each page is a seek into the index however deep the client pages.
+     */
+    @Transactional(readOnly = true)
+    public OrderPage listOrders(String customerId, OrderStatus status, String assetName, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        LocalDateTime afterCreateDate = null;
+        String afterOrderId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor);
+            afterCreateDate = LocalDateTime.parse(position[0]);
+            afterOrderId = position[1];
+        }
+
+        // One extra row tells whether another page follows
+        List<OrderEntity> orders = orderRepository.findPage(customerId, status, assetName,
+                afterCreateDate, afterOrderId, limit + 1);
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
+        }
+        List<OrderEntity> page = List.copyOf(orders.subList(0, limit));
+        return new OrderPage(page, encodeCursor(page.get(limit - 1)));
+    }
+
     /**
      * Cancel an order (delete pending order)
+     * Runs on the asset's sequencer thread, which owns the transaction
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void cancelOrder(String orderId, String customerId) {
         log.info("Canceling order {} for customer {}", orderId, customerId);
 
-        OrderEntity order = orderRepository.findByOrderIdAndCustomerId(orderId, customerId)
+        String assetName = orderRepository.findByOrderIdAndCustomerId(orderId, customerId)
+                .map(OrderEntity::getAssetName)
                 .orElseThrow(() -> new OrderNotFoundException(orderId, customerId));
 
-        if (!order.canBeCanceled()) {
-            throw new InvalidOrderStatusException(orderId, order.getStatus(), "cancel");
-        }
+        orderSequencer.execute(assetName, () -> {
+            OrderEntity canceledOrder = cancelOnBook(orderId, customerId);
+            journalService.record(JournalEntry.cancel(canceledOrder));
+            return null;
+        });
+        journalService.awaitDurable();
+    }
 
-        // Release reserved assets
-        assetService.releaseAssetsForOrder(
-                order.getCustomerId(),
-                order.getAssetName(),
-                order.getOrderSide(),
-                order.getSize(),
-                order.getPrice()
-        );
+    /**
+     * Cancel every open order of a customer, or only those of one asset when assetName is given
+     * Each asset's orders are canceled in one transaction on its sequencer, with the reservations
+     * released in aggregate and the statuses flipped by one bulk UPDATE.
+     * Returns the IDs of the canceled orders.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<String> cancelOrders(String customerId, String assetName) {
+        log.info("Canceling all open orders for customer {}{}", customerId,
+                assetName != null ? " in " + assetName : "");
 
-        // Mark order as canceled
-        order.cancel();
-        orderRepository.save(order);
+        List<String> assetNames = assetName != null
+                ? List.of(assetName)
+                : orderRepository.findByCustomerIdAndStatusInOrderByCreateDateAsc(customerId, OrderStatus.OPEN).stream()
+                        .map(OrderEntity::getAssetName)
+                        .distinct()
+                        .toList();
 
-        log.info("Order {} canceled successfully", orderId);
+        List<String> canceledOrderIds = new ArrayList<>();
+        for (String name : assetNames) {
+            List<OrderEntity> canceledOrders = orderSequencer.execute(name, () -> {
+                List<OrderEntity> orders = cancelAllOnBook(customerId, name);
+                journalService.recordAll(orders.stream().map(JournalEntry::cancel).toList());
+                return orders;
+            });
+            canceledOrders.forEach(order -> canceledOrderIds.add(order.getOrderId()));
+        }
+
+        journalService.awaitDurable();
+        log.info("Canceled {} orders for customer {}", canceledOrderIds.size(), customerId);
+        return canceledOrderIds;
+    }
+
+    /**
+     * Re-apply a journaled cancellation during recovery
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void replayCancel(JournalEntry entry) {
+        orderSequencer.execute(entry.getAssetName(), () -> {
+            cancelOnBook(entry.getOrderId(), entry.getCustomerId());
+            journalService.checkpoint(entry.getAssetName(), entry.getSequence());
+            return null;
+        });
     }
 
     /**
@@ -111,10 +242,163 @@ public class OrderService {
     }
 
     /**
-     * Get all pending orders (for admin matching)
+     * Get all open orders, including partially filled ones still resting in a book (for admin matching)
      */
     @Transactional(readOnly = true)
     public List<OrderEntity> getAllPendingOrders() {
-        return orderRepository.findByStatusOrderByCreateDateAsc(OrderStatus.PENDING);
+        return orderRepository.findByStatusInOrderByCreateDateAsc(OrderStatus.OPEN);
+    }
+
+    // Private helper methods
+
+    private static String encodeCursor(OrderEntity lastOrder) {
+        String position = lastOrder.getCreateDate() + "|" + lastOrder.getOrderId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private OrderEntity placeOrder(OrderEntity order) {
+        // Reserve assets before placing order
+        assetService.reserveAssetsForOrder(
+                order.getCustomerId(),
+                order.getAssetName(),
+                order.getOrderSide(),
+                order.getSize(),
+                order.getPrice()
+        );
+
+        // Cross against resting counter-orders; an unmatched order rests in the book
+        matchingService.submitOrder(order);
+
+        OrderEntity savedOrder = orderRepository.save(order);
+        orderEventService.publish(savedOrder);
+        log.info("Order created successfully: {}", savedOrder.getOrderId());
+        return savedOrder;
+    }
+
+    private List<BatchOrderResult> placeBatch(Map<Integer, CreateOrderRequest> requests) {
+        List<BatchOrderResult> results = new ArrayList<>();
+        Map<String, Integer> indexByOrderId = new HashMap<>();
+        Map<String, List<OrderEntity>> ordersByCustomer = new LinkedHashMap<>();
+
+        requests.forEach((index, request) -> {
+            try {
+                OrderEntity order = new OrderEntity(request.getCustomerId(), request.getAssetName(),
+                        request.getOrderSide(), request.getSize(), request.getPrice());
+                indexByOrderId.put(order.getOrderId(), index);
+                ordersByCustomer.computeIfAbsent(order.getCustomerId(), customer -> new ArrayList<>()).add(order);
+            } catch (IllegalArgumentException e) {
+                results.add(BatchOrderResult.rejected(index, e.getMessage()));
+            }
+        });
+
+        // One read and one write per customer balance row
+        List<OrderEntity> accepted = new ArrayList<>();
+        ordersByCustomer.forEach((customerId, orders) -> {
+            Map<String, RuntimeException> rejections = assetService.reserveAssetsForOrders(
+                    customerId, orders.get(0).getAssetName(), orders);
+            for (OrderEntity order : orders) {
+                RuntimeException rejection = rejections.get(order.getOrderId());
+                if (rejection == null) {
+                    accepted.add(order);
+                } else {
+                    results.add(BatchOrderResult.rejected(indexByOrderId.get(order.getOrderId()), rejection.getMessage()));
+                }
+            }
+        });
+        if (accepted.isEmpty()) {
+            return results;
+        }
+
+        // The book must be loaded before the rows exist, or they would be loaded and then submitted again
+        String assetName = accepted.get(0).getAssetName();
+        matchingService.prepareOrderBook(assetName);
+        orderRepository.insertAll(accepted);
+
+        for (OrderEntity order : accepted) {
+            matchingService.submitOrder(order);
+            // Left as inserted unless it filled or was canceled to prevent a self-trade
+            if (order.getFilledSize().signum() > 0 || !order.isOpen()) {
+                orderRepository.save(order);
+            }
+        }
+        accepted.forEach(order -> journalService.record(JournalEntry.create(order)));
+
+        // Read back the final state, including fills against later orders of the same batch
+        orderRepository.findAllById(accepted.stream().map(OrderEntity::getOrderId).toList())
+                .forEach(order -> {
+                    orderEventService.publish(order);
+                    results.add(BatchOrderResult.accepted(indexByOrderId.get(order.getOrderId()), OrderResponse.fromEntity(order)));
+                });
+
+        log.info("Placed {} of {} batch orders for {}", accepted.size(), requests.size(), assetName);
+        return results;
+    }
+
+    private List<OrderEntity> cancelAllOnBook(String customerId, String assetName) {
+        // Orders no longer in the book have just been matched and are left alone
+        List<OrderEntity> withdrawn = new ArrayList<>();
+        for (OrderEntity order : orderRepository.findByCustomerIdAndAssetNameAndStatusInOrderByCreateDateAsc(
+                customerId, assetName, OrderStatus.OPEN)) {
+            if (matchingService.withdrawOrder(order)) {
+                withdrawn.add(order);
+            }
+        }
+        if (withdrawn.isEmpty()) {
+            return withdrawn;
+        }
+
+        assetService.releaseAssetsForOrders(customerId, assetName, withdrawn);
+        orderRepository.updateStatus(withdrawn.stream().map(OrderEntity::getOrderId).toList(),
+                OrderStatus.OPEN, OrderStatus.CANCELED);
+        // The bulk update detached the orders; mirror it on them for the events
+        withdrawn.forEach(OrderEntity::cancel);
+        withdrawn.forEach(orderEventService::publish);
+
+        log.info("Canceled {} {} orders for customer {}", withdrawn.size(), assetName, customerId);
+        return withdrawn;
+    }
+
+    private OrderEntity cancelOnBook(String orderId, String customerId) {
+        OrderEntity order = orderRepository.findByOrderIdAndCustomerId(orderId, customerId)
+                .orElseThrow(() -> new OrderNotFoundException(orderId, customerId));
+
+        if (!order.canBeCanceled()) {
+            throw new InvalidOrderStatusException(orderId, order.getStatus(), "cancel");
+        }
+
+        // Take the order out of the book; if it is already gone it has just been matched
+        if (!matchingService.withdrawOrder(order)) {
+            throw new InvalidOrderStatusException(orderId, order.getStatus(), "cancel");
+        }
+
+        // Release what is still reserved for the unfilled size
+        assetService.releaseAssetsForOrder(
+                order.getCustomerId(),
+                order.getAssetName(),
+                order.getOrderSide(),
+                order.getRemainingSize(),
+                order.getPrice()
+        );
+
+        // Mark order as canceled
+        order.cancel();
+        OrderEntity canceledOrder = orderRepository.save(order);
+        orderEventService.publish(canceledOrder);
+
+        log.info("Order {} canceled successfully", orderId);
+        return canceledOrder;
     }
 }
@@ -0,0 +1,72 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.AssetId;
+import firm.brokerage.entity.OrderSide;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Balance changes of many fills, summed per customer and asset
+ * Applied by {@link AssetService#applySettlement(SettlementBatch)} so that every asset row
+ * is read and written once, however many fills touched it.
+ */
+public class SettlementBatch {
+
+    private final Map<AssetId, Change> changes = new LinkedHashMap<>();
+
+    /**
+     * Add one side of a fill; same rules as {@link AssetService#processMatchedOrder}
+     */
+    public void addFill(String customerId, String assetName, OrderSide orderSide,
+                        BigDecimal size, BigDecimal limitPrice, BigDecimal executionPrice) {
+        BigDecimal tryAmount = size.multiply(executionPrice);
+
+        if (orderSide == OrderSide.BUY) {
+            Change tryChange = changeOf(customerId, AssetService.TRY_ASSET);
+            tryChange.consumed = tryChange.consumed.add(tryAmount);
+            BigDecimal priceImprovement = size.multiply(limitPrice.subtract(executionPrice));
+            if (priceImprovement.signum() > 0) {
+                tryChange.released = tryChange.released.add(priceImprovement);
+            }
+            Change assetChange = changeOf(customerId, assetName);
+            assetChange.increased = assetChange.increased.add(size);
+        } else {
+            Change assetChange = changeOf(customerId, assetName);
+            assetChange.consumed = assetChange.consumed.add(size);
+            Change tryChange = changeOf(customerId, AssetService.TRY_ASSET);
+            tryChange.increased = tryChange.increased.add(tryAmount);
+        }
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    Collection<AssetId> getAssetIds() {
+        return changes.keySet();
+    }
+
+    Map<AssetId, Change> getChanges() {
+        return changes;
+    }
+
+    private Change changeOf(String customerId, String assetName) {
+        return changes.computeIfAbsent(new AssetId(customerId, assetName), id -> new Change());
+    }
+
+    /**
+     * Net effect on one asset row: reserved amount paid out, reserved amount released, amount received
+     */
+    static final class Change {
+        BigDecimal consumed = BigDecimal.ZERO;
+        BigDecimal released = BigDecimal.ZERO;
+        BigDecimal increased = BigDecimal.ZERO;
+
+        boolean consumesOrReleases() {
+            return consumed.signum() > 0 || released.signum() > 0;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.journal.BookSnapshot;
+import firm.brokerage.journal.CommandJournal;
+import firm.brokerage.journal.SnapshotStore;
+import firm.brokerage.matching.OrderSequencer;
+import firm.brokerage.repository.AssetRepository;
+import firm.brokerage.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Periodic snapshots that bound the command journal
+ * A snapshot is taken while every shard is paused, so each command journaled up to its
+ * sequence has committed together with its asset's checkpoint. The journal segments it
+ * covers can then be dropped: recovery never replays an entry at or below a checkpoint.
+ * Recovery does not load snapshots, since the database they are copied from is already as
+ * new as they are; the file is kept as a record of the books and balances at that point.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class SnapshotService {
+
+    private final OrderSequencer orderSequencer;
+    private final CommandJournal commandJournal;
+    private final SnapshotStore snapshotStore;
+    private final AssetRepository assetRepository;
+    private final OrderRepository orderRepository;
+
+    @Value("${brokerage.snapshot.enabled:false}")
+    private boolean enabled;
+
+    // Snapshots only make sense once recovery has brought the database up to the journal
+    private volatile boolean recovered;
+    private volatile long lastSnapshotSequence;
+
+    /**
+     * Take a snapshot in the background if anything was journaled since the last one
+     */
+    @Scheduled(fixedDelayString = "${brokerage.snapshot.interval-ms:60000}",
+            initialDelayString = "${brokerage.snapshot.interval-ms:60000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void takeScheduledSnapshot() {
+        if (!enabled || !commandJournal.isEnabled() || !recovered
+                || commandJournal.getLastSequence() == lastSnapshotSequence) {
+            return;
+        }
+
+        try {
+            takeSnapshot();
+        } catch (RuntimeException e) {
+            log.error("Scheduled snapshot failed", e);
+        }
+    }
+
+    /**
+     * Capture every book and balance at the current journal sequence
+     * Shards are paused only while the state is read; writing the file and dropping
+     * the journal segments it covers happen after they resume.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BookSnapshot takeSnapshot() {
+        AtomicReference<BookSnapshot> captured = new AtomicReference<>();
+        orderSequencer.runExclusive(() -> {
+            captured.set(new BookSnapshot(
+                    commandJournal.getLastSequence(),
+                    assetRepository.findAll(),
+                    orderRepository.findByStatusInOrderByCreateDateAsc(OrderStatus.OPEN)
+            ));
+        });
+
+        BookSnapshot snapshot = captured.get();
+        snapshotStore.save(snapshot);
+        commandJournal.deleteSegmentsBefore(snapshot.getSequence());
+        lastSnapshotSequence = snapshot.getSequence();
+
+        log.info("Snapshot taken at journal sequence {}", snapshot.getSequence());
+        return snapshot;
+    }
+
+    /**
+     * Allow scheduled snapshots once journal recovery is done
+     */
+    public void markRecovered() {
+        recovered = true;
+    }
+}
@@ -0,0 +1,16 @@
+package firm.brokerage.service;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a verified token says about its bearer
+ */
+@Value
+public class TokenClaims {
+    String customerId;
+    List<String> roles;
+    Instant expiresAt;
+}
@@ -0,0 +1,15 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.TradeEntity;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of an asset's trades and the cursor of the next page, null on the last one
+ */
+@Value
+public class TradePage {
+    List<TradeEntity> trades;
+    String nextCursor;
+}
@@ -0,0 +1,94 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.TradeEntity;
+import firm.brokerage.repository.TradeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Trade ledger: executions recorded by matching, read back by asset and time range
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class TradeService {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private final TradeRepository tradeRepository;
+
+    /**
+     * Record the executions of one command with a single batch insert
+     */
+    public void recordTrades(List<TradeEntity> trades) {
+        if (trades.isEmpty()) {
+            return;
+        }
+        tradeRepository.insertAll(trades);
+        log.debug("Recorded {} trades", trades.size());
+    }
+
+    /**
+     * Page through an asset's trades from startDate (inclusive) to endDate (exclusive), oldest first
+     * The cursor is opaque to clients: the position of the last trade already returned,
+     * so each page is a seek into the index however deep the client pages.
+     */
+    @Transactional(readOnly = true)
+    public TradePage listTrades(String assetName, LocalDateTime startDate, LocalDateTime endDate,
+                                String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        // Trade IDs are positive, so the position (startDate, -1) includes trades at exactly startDate
+        LocalDateTime afterDate = startDate;
+        long afterTradeId = -1;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor);
+            afterDate = LocalDateTime.parse(position[0]);
+            afterTradeId = Long.parseLong(position[1]);
+        }
+
+        // One extra row tells whether another page follows
+        List<TradeEntity> trades = tradeRepository.findPage(assetName, afterDate, afterTradeId, endDate,
+                Limit.of(limit + 1));
+        if (trades.size() <= limit) {
+            return new TradePage(trades, null);
+        }
+        List<TradeEntity> page = List.copyOf(trades.subList(0, limit));
+        return new TradePage(page, encodeCursor(page.get(limit - 1)));
+    }
+
+    // Private helper methods
+
+    private static String encodeCursor(TradeEntity lastTrade) {
+        String position = lastTrade.getTradeDate() + "|" + lastTrade.getTradeId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -16,9 +16,13 @@ CREATE TABLE IF NOT EXISTS assets (
                                     asset_name VARCHAR(50) NOT NULL,
                                     size DECIMAL(19,2) NOT NULL DEFAULT 0.00,
                                     usable_size DECIMAL(19,2) NOT NULL DEFAULT 0.00,
+                                    version BIGINT NOT NULL DEFAULT 0,
                                     PRIMARY KEY (customer_id, asset_name)
     );
 
+-- Upgrade assets tables created before optimistic versioning
+ALTER TABLE assets ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
 -- Create orders table
 CREATE TABLE IF NOT EXISTS orders (
                                     order_id VARCHAR(255) PRIMARY KEY,
@@ -26,13 +30,59 @@ CREATE TABLE IF NOT EXISTS orders (
                                     asset_name VARCHAR(50) NOT NULL,
                                     order_side VARCHAR(10) NOT NULL CHECK (order_side IN ('BUY', 'SELL')),
                                     size DECIMAL(19,2) NOT NULL,
+                                    filled_size DECIMAL(19,2) NOT NULL DEFAULT 0.00,
                                     price DECIMAL(19,2) NOT NULL,
-                                    status VARCHAR(20) NOT NULL DEFAULT 'PENDING' CHECK (status IN ('PENDING', 'MATCHED', 'CANCELED')),
+                                    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
                                     create_date TIMESTAMP NOT NULL
     );
 
+-- Upgrade orders tables created before partial fills: CREATE TABLE IF NOT EXISTS leaves them as they are
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS filled_size DECIMAL(19,2) NOT NULL DEFAULT 0.00;
+-- The old status check was unnamed and lacks PARTIALLY_FILLED and FILLED; look it up and drop it
+EXECUTE IMMEDIATE COALESCE(
+        (SELECT 'ALTER TABLE orders DROP CONSTRAINT ' || QUOTE_IDENT(tc.constraint_name)
+         FROM information_schema.table_constraints tc
+         JOIN information_schema.check_constraints cc
+           ON cc.constraint_schema = tc.constraint_schema AND cc.constraint_name = tc.constraint_name
+         WHERE tc.table_schema = SCHEMA() AND tc.table_name = 'ORDERS' AND tc.constraint_type = 'CHECK'
+           AND cc.check_clause LIKE '%''MATCHED''%' AND cc.check_clause NOT LIKE '%''PARTIALLY_FILLED''%'
+         LIMIT 1),
+        'SELECT 1');
+ALTER TABLE orders ADD CONSTRAINT IF NOT EXISTS chk_orders_status
+    CHECK (status IN ('PENDING', 'PARTIALLY_FILLED', 'FILLED', 'MATCHED', 'CANCELED'));
+
+-- Create trades table (one row per execution; trade_id is time-ordered)
+CREATE TABLE IF NOT EXISTS trades (
+                                    trade_id BIGINT PRIMARY KEY,
+                                    asset_name VARCHAR(50) NOT NULL,
+                                    buy_order_id VARCHAR(255) NOT NULL,
+                                    sell_order_id VARCHAR(255) NOT NULL,
+                                    price DECIMAL(19,2) NOT NULL,
+                                    size DECIMAL(19,2) NOT NULL,
+                                    trade_date TIMESTAMP NOT NULL
+    );
+
+-- Last journal sequence applied per asset (command journal recovery)
+CREATE TABLE IF NOT EXISTS journal_checkpoints (
+                                    asset_name VARCHAR(50) PRIMARY KEY,
+                                    last_sequence BIGINT NOT NULL
+    );
+
 -- Create indexes for better performance
-CREATE INDEX IF NOT EXISTS idx_orders_customer_id ON orders(customer_id);
-CREATE INDEX IF NOT EXISTS idx_orders_status ON orders(status);
+-- Shaped after the order queries: equality columns first, then the range or sort column
+-- Customer history by date range and keyset paging, which seeks on (create_date, order_id)
+CREATE INDEX IF NOT EXISTS idx_orders_customer_create_date ON orders(customer_id, create_date, order_id);
+-- A customer's orders in some statuses, newest or oldest first
+CREATE INDEX IF NOT EXISTS idx_orders_customer_status_create_date ON orders(customer_id, status, create_date);
+-- Orders in some statuses in arrival order (admin matching, snapshots)
+CREATE INDEX IF NOT EXISTS idx_orders_status_create_date ON orders(status, create_date);
+-- Open orders of one asset in arrival order (order book load)
+CREATE INDEX IF NOT EXISTS idx_orders_asset_status_create_date ON orders(asset_name, status, create_date);
+-- All orders in arrival order (export stream)
 CREATE INDEX IF NOT EXISTS idx_orders_create_date ON orders(create_date);
-CREATE INDEX IF NOT EXISTS idx_assets_customer_id ON assets(customer_id);
\ No newline at end of file
+-- Single-column indexes superseded by the composite ones above
+DROP INDEX IF EXISTS idx_orders_customer_id;
+DROP INDEX IF EXISTS idx_orders_status;
+CREATE INDEX IF NOT EXISTS idx_assets_customer_id ON assets(customer_id);
+-- Trades of an asset by time range and keyset paging, which seeks on (trade_date, trade_id)
+CREATE INDEX IF NOT EXISTS idx_trades_asset_trade_date ON trades(asset_name, trade_date, trade_id);
\ No newline at end of file
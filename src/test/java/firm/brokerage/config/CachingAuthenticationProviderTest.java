@@ -0,0 +1,85 @@
+package firm.brokerage.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class CachingAuthenticationProviderTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private AuthenticationProvider passwordCheck;
+    private VerifiedCredentialCache credentialCache;
+    private CachingAuthenticationProvider provider;
+    private Authentication verified;
+
+    @BeforeEach
+    void setUp() {
+        passwordCheck = mock(AuthenticationProvider.class);
+        credentialCache = new VerifiedCredentialCache(100, 60000, now::get);
+        provider = new CachingAuthenticationProvider(passwordCheck, credentialCache);
+        verified = UsernamePasswordAuthenticationToken.authenticated("admin", null,
+                AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+
+        when(passwordCheck.authenticate(argThat(request -> "admin123".equals(request.getCredentials()))))
+                .thenReturn(verified);
+        when(passwordCheck.authenticate(argThat(request -> !"admin123".equals(request.getCredentials()))))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+    }
+
+    @Test
+    @DisplayName("Should check a password once and serve repeats from the cache")
+    void shouldServeRepeatedCredentialsFromCache() {
+        // When
+        Authentication first = provider.authenticate(login("admin123"));
+        Authentication second = provider.authenticate(login("admin123"));
+
+        // Then
+        assertSame(verified, first);
+        assertSame(verified, second);
+        verify(passwordCheck, times(1)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("Should always check a wrong password")
+    void shouldAlwaysCheckWrongPassword() {
+        // Given
+        provider.authenticate(login("admin123"));
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("guess")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("guess")));
+        verify(passwordCheck, times(3)).authenticate(any());
+    }
+
+    @Test
+    @DisplayName("Should check the password again once the entry expired")
+    void shouldCheckAgainAfterExpiry() {
+        // Given
+        provider.authenticate(login("admin123"));
+
+        // When
+        now.addAndGet(TimeUnit.SECONDS.toNanos(59));
+        provider.authenticate(login("admin123"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        provider.authenticate(login("admin123"));
+
+        // Then
+        verify(passwordCheck, times(2)).authenticate(any());
+    }
+
+    private static Authentication login(String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated("admin", password);
+    }
+}
@@ -3,7 +3,10 @@ package firm.brokerage.controller;
 import firm.brokerage.config.SecurityConfig;
 import firm.brokerage.entity.AssetEntity;
 import firm.brokerage.exception.AssetNotFoundException;
+import firm.brokerage.exception.InvalidCredentialsException;
 import firm.brokerage.service.AssetService;
+import firm.brokerage.service.AuthService;
+import firm.brokerage.service.TokenClaims;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +17,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
@@ -31,6 +35,9 @@ class AssetControllerTest {
     @MockBean
     private AssetService assetService;
 
+    @MockBean
+    private AuthService authService;
+
     @Test
     @DisplayName("Should list assets successfully with admin authentication")
     @WithMockUser(username = "admin", roles = {"ADMIN"})
@@ -95,6 +102,56 @@ class AssetControllerTest {
         verify(assetService, never()).getCustomerAssets(any(String.class));
     }
 
+    @Test
+    @DisplayName("Should list assets with a bearer token")
+    void shouldListAssetsWithBearerToken() throws Exception {
+        // Given
+        when(authService.verifyToken("signed-token")).thenReturn(
+                new TokenClaims("CUST001", List.of("CUSTOMER"), Instant.now().plusSeconds(60)));
+        when(assetService.getCustomerAssets("CUST001")).thenReturn(List.of());
+
+        // When & Then
+        mockMvc.perform(get("/api/assets")
+                        .param("customerId", "CUST001")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should refuse a customer's token on another customer's assets")
+    void shouldRefuseTokenOfOtherCustomer() throws Exception {
+        // Given
+        when(authService.verifyToken("signed-token")).thenReturn(
+                new TokenClaims("CUST001", List.of("CUSTOMER"), Instant.now().plusSeconds(60)));
+
+        // When & Then
+        mockMvc.perform(get("/api/assets")
+                        .param("customerId", "CUST002")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/assets/{assetName}", "TRY")
+                        .param("customerId", "CUST002")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(assetService);
+    }
+
+    @Test
+    @DisplayName("Should reject an invalid bearer token")
+    void shouldRejectInvalidBearerToken() throws Exception {
+        // Given
+        when(authService.verifyToken("forged-token")).thenThrow(new InvalidCredentialsException("Invalid token"));
+
+        // When & Then
+        mockMvc.perform(get("/api/assets")
+                        .param("customerId", "CUST001")
+                        .header("Authorization", "Bearer forged-token"))
+                .andExpect(status().isUnauthorized());
+
+        verify(assetService, never()).getCustomerAssets(any(String.class));
+    }
+
     @Test
     @DisplayName("Should require authentication for specific asset retrieval")
     void shouldRequireAuthenticationForSpecificAssetRetrieval() throws Exception {
@@ -2,30 +2,41 @@ package firm.brokerage.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import firm.brokerage.config.SecurityConfig;
+import firm.brokerage.dto.BatchOrderRequest;
+import firm.brokerage.dto.BatchOrderResult;
 import firm.brokerage.dto.CreateOrderRequest;
+import firm.brokerage.dto.OrderResponse;
 import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.OrderSide;
 import firm.brokerage.entity.OrderStatus;
 import firm.brokerage.exception.InsufficientFundsException;
 import firm.brokerage.exception.InvalidOrderStatusException;
 import firm.brokerage.exception.OrderNotFoundException;
+import firm.brokerage.service.AuthService;
+import firm.brokerage.service.OrderEventService;
+import firm.brokerage.service.OrderPage;
 import firm.brokerage.service.OrderService;
+import firm.brokerage.service.TokenClaims;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -42,6 +53,12 @@ class OrderControllerTest {
     @MockBean
     private OrderService orderService;
 
+    @MockBean
+    private OrderEventService orderEventService;
+
+    @MockBean
+    private AuthService authService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -119,6 +136,29 @@ class OrderControllerTest {
         verify(orderService, times(1)).listOrders(customerId);
     }
 
+    @Test
+    @DisplayName("Should return one page of order history with the next cursor")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldListOrderHistoryPage() throws Exception {
+        // Given
+        OrderEntity order = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        when(orderService.listOrders("CUST001", OrderStatus.PENDING, "AAPL", "abc", 1))
+                .thenReturn(new OrderPage(List.of(order), "def"));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/history")
+                        .param("customerId", "CUST001")
+                        .param("status", "PENDING")
+                        .param("assetName", "AAPL")
+                        .param("cursor", "abc")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders.length()").value(1))
+                .andExpect(jsonPath("$.orders[0].orderId").value(order.getOrderId()))
+                .andExpect(jsonPath("$.nextCursor").value("def"));
+    }
+
     @Test
     @DisplayName("Should list orders with date range filter")
     @WithMockUser(username = "admin", roles = {"ADMIN"})
@@ -170,6 +210,46 @@ class OrderControllerTest {
         verify(orderService, times(1)).cancelOrder(orderId, customerId);
     }
 
+    @Test
+    @DisplayName("Should refuse a customer's token on another customer's orders")
+    void shouldRefuseTokenOfOtherCustomer() throws Exception {
+        // Given
+        when(authService.verifyToken("signed-token")).thenReturn(
+                new TokenClaims("CUST001", List.of("CUSTOMER"), Instant.now().plusSeconds(60)));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders")
+                        .param("customerId", "CUST002")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/orders/{orderId}", "ORDER123")
+                        .param("customerId", "CUST002")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/orders")
+                        .param("customerId", "CUST002")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isForbidden());
+
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    @DisplayName("Should let a customer's token cancel its own order")
+    void shouldAllowTokenOfSameCustomer() throws Exception {
+        // Given
+        when(authService.verifyToken("signed-token")).thenReturn(
+                new TokenClaims("CUST001", List.of("CUSTOMER"), Instant.now().plusSeconds(60)));
+
+        // When & Then
+        mockMvc.perform(delete("/api/orders/{orderId}", "ORDER123")
+                        .param("customerId", "CUST001")
+                        .header("Authorization", "Bearer signed-token"))
+                .andExpect(status().isNoContent());
+
+        verify(orderService).cancelOrder("ORDER123", "CUST001");
+    }
+
     @Test
     @DisplayName("Should get specific order successfully")
     @WithMockUser(username = "admin", roles = {"ADMIN"})
@@ -329,6 +409,21 @@ class OrderControllerTest {
                 .andExpect(jsonPath("$.message").value("Order NONEXISTENT not found for customer CUST001"));
     }
 
+    @Test
+    @DisplayName("Should answer 503 when the customer lock stays busy after every retry")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldHandleBusyCustomerLock() throws Exception {
+        // Given
+        doThrow(new CannotAcquireLockException("Timed out waiting for a customer lock"))
+                .when(orderService).cancelOrder("ORDER123", "CUST001");
+
+        // When & Then
+        mockMvc.perform(delete("/api/orders/{orderId}", "ORDER123")
+                        .param("customerId", "CUST001"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.code").value("CUSTOMER_BUSY"));
+    }
+
     @Test
     @DisplayName("Should handle invalid order status exception when canceling")
     @WithMockUser(username = "admin", roles = {"ADMIN"})
@@ -377,4 +472,103 @@ class OrderControllerTest {
 
         verify(orderService, never()).createOrder(any(CreateOrderRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should create batch of orders and report per-order results")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldCreateBatchOfOrders() throws Exception {
+        // Given
+        CreateOrderRequest request = new CreateOrderRequest(
+                "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00")
+        );
+        OrderEntity orderEntity = new OrderEntity(
+                "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00")
+        );
+
+        when(orderService.createOrders(anyList())).thenReturn(List.of(
+                BatchOrderResult.accepted(0, OrderResponse.fromEntity(orderEntity)),
+                BatchOrderResult.rejected(1, "Customer CUST001 has insufficient TRY")
+        ));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchOrderRequest(List.of(request, request)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.acceptedCount").value(1))
+                .andExpect(jsonPath("$.rejectedCount").value(1))
+                .andExpect(jsonPath("$.results[0].order.assetName").value("AAPL"))
+                .andExpect(jsonPath("$.results[1].error").value("Customer CUST001 has insufficient TRY"));
+    }
+
+    @Test
+    @DisplayName("Should reject empty batch")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldRejectEmptyBatch() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchOrderRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verify(orderService, never()).createOrders(anyList());
+    }
+
+    @Test
+    @DisplayName("Should cancel all open orders of a customer for one asset")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldCancelAllOpenOrdersForAsset() throws Exception {
+        // Given
+        when(orderService.cancelOrders("CUST001", "AAPL")).thenReturn(List.of("ORDER001", "ORDER002"));
+
+        // When & Then
+        mockMvc.perform(delete("/api/orders")
+                        .with(csrf())
+                        .param("customerId", "CUST001")
+                        .param("assetName", "AAPL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.canceledCount").value(2))
+                .andExpect(jsonPath("$.canceledOrderIds[1]").value("ORDER002"));
+
+        verify(orderService).cancelOrders("CUST001", "AAPL");
+    }
+
+    @Test
+    @DisplayName("Should open an order event stream for the customer")
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldOpenOrderEventStream() throws Exception {
+        // Given
+        when(orderEventService.getStreamTimeoutMs()).thenReturn(60000L);
+        when(orderEventService.subscribe(eq("CUST001"), any())).thenReturn(() -> { });
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/events")
+                        .param("customerId", "CUST001")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+
+        verify(orderEventService).subscribe(eq("CUST001"), any());
+    }
+
+    @Test
+    @DisplayName("Should refuse a customer's token on another customer's order event stream")
+    void shouldRefuseOrderEventStreamOfOtherCustomer() throws Exception {
+        // Given
+        when(authService.verifyToken("signed-token")).thenReturn(
+                new TokenClaims("CUST001", List.of("CUSTOMER"), Instant.now().plusSeconds(60)));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/events")
+                        .param("customerId", "CUST002")
+                        .header("Authorization", "Bearer signed-token")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isForbidden());
+
+        verify(orderEventService, never()).subscribe(anyString(), any());
+    }
+}
@@ -74,6 +74,36 @@ class AssetEntityTest {
         assertEquals(0, new BigDecimal("200.00").compareTo(asset.getReservedAmount()));
     }
 
+    @Test
+    @DisplayName("Should consume reserved amount without touching usable size")
+    void shouldConsumeReservedAmountWithoutTouchingUsableSize() {
+        // Given
+        AssetEntity asset = new AssetEntity("CUST001", "TRY", new BigDecimal("1000.00"));
+        asset.reserve(new BigDecimal("300.00"));
+
+        // When
+        asset.consumeReserved(new BigDecimal("200.00"));
+
+        // Then
+        assertEquals(0, new BigDecimal("800.00").compareTo(asset.getSize()));
+        assertEquals(0, new BigDecimal("700.00").compareTo(asset.getUsableSize()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(asset.getReservedAmount()));
+    }
+
+    @Test
+    @DisplayName("Should throw exception when consuming more than reserved amount")
+    void shouldThrowExceptionWhenConsumingMoreThanReservedAmount() {
+        // Given
+        AssetEntity asset = new AssetEntity("CUST001", "TRY", new BigDecimal("1000.00"));
+        asset.reserve(new BigDecimal("100.00"));
+
+        // When & Then
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> asset.consumeReserved(new BigDecimal("150.00"))
+        );
+    }
+
     @Test
     @DisplayName("Should check sufficient usable amount correctly")
     void shouldCheckSufficientUsableAmountCorrectly() {
@@ -0,0 +1,115 @@
+package firm.brokerage.entity;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdGeneratorTest {
+
+    private static final long NOW = IdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    @DisplayName("Should encode time, node and sequence in increasing IDs")
+    void shouldGenerateIncreasingIds() {
+        // Given
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(5, clock::get);
+
+        // When
+        long first = generator.nextId();
+        long second = generator.nextId();
+        clock.addAndGet(1);
+        long third = generator.nextId();
+
+        // Then
+        assertEquals(1_000_000L, first >>> (IdGenerator.NODE_BITS + IdGenerator.SEQUENCE_BITS));
+        assertEquals(5L, (first >>> IdGenerator.SEQUENCE_BITS) & IdGenerator.MAX_NODE_ID);
+        assertEquals(first + 1, second);
+        assertTrue(third > second);
+        assertEquals(0L, third & ((1L << IdGenerator.SEQUENCE_BITS) - 1));
+    }
+
+    @Test
+    @DisplayName("Should keep increasing when the clock steps back or a millisecond runs out of sequence numbers")
+    void shouldStayMonotonic() {
+        // Given
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(0, clock::get);
+
+        // When
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                clock.addAndGet(-1_000);
+            }
+            long next = generator.nextId();
+
+            // Then
+            assertTrue(next > previous, "ID " + next + " not after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("Should hand out unique IDs to concurrent callers")
+    void shouldGenerateUniqueIdsConcurrently() throws InterruptedException {
+        // Given
+        IdGenerator generator = new IdGenerator(1, System::currentTimeMillis);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+
+        // When
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(80_000, ids.size());
+    }
+
+    @Test
+    @DisplayName("Should format IDs as fixed-width strings in the same order")
+    void shouldFormatSortableStrings() {
+        // Given
+        IdGenerator generator = new IdGenerator(3, System::currentTimeMillis);
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        // When
+        String firstString = IdGenerator.format(first);
+        String secondString = IdGenerator.format(second);
+
+        // Then
+        assertEquals(13, firstString.length());
+        assertTrue(firstString.compareTo(secondString) < 0);
+        assertEquals(first, IdGenerator.parse(firstString));
+        assertEquals(Long.MAX_VALUE, IdGenerator.parse(IdGenerator.format(Long.MAX_VALUE)));
+        assertEquals("0000000000000", IdGenerator.format(0));
+    }
+
+    @Test
+    @DisplayName("Should reject malformed IDs and node numbers")
+    void shouldRejectInvalidInput() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.parse("ORD001"));
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.parse("000000000000U"));
+        assertThrows(IllegalArgumentException.class, () -> IdGenerator.parse("Z000000000000"));
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1, System::currentTimeMillis));
+    }
+}
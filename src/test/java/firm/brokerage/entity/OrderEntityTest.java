@@ -78,7 +78,7 @@ class OrderEntityTest {
                 () -> order.cancel()
         );
 
-        assertTrue(exception.getMessage().contains("Only PENDING orders can be canceled"));
+        assertTrue(exception.getMessage().contains("Only PENDING or PARTIALLY_FILLED orders can be canceled"));
     }
 
     @Test
@@ -97,4 +97,44 @@ class OrderEntityTest {
         assertFalse(order.canBeCanceled());
         assertFalse(order.canBeMatched());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should fill order partially then completely")
+    void shouldFillOrderPartiallyThenCompletely() {
+        // Given
+        OrderEntity order = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+
+        // When
+        order.fill(new BigDecimal("4.00"));
+
+        // Then
+        assertEquals(OrderStatus.PARTIALLY_FILLED, order.getStatus());
+        assertEquals(0, new BigDecimal("4.00").compareTo(order.getFilledSize()));
+        assertEquals(0, new BigDecimal("6.00").compareTo(order.getRemainingSize()));
+        assertTrue(order.canBeCanceled());
+
+        // When
+        order.fill(new BigDecimal("6.00"));
+
+        // Then
+        assertEquals(OrderStatus.FILLED, order.getStatus());
+        assertTrue(order.isFilled());
+        assertFalse(order.canBeCanceled());
+    }
+
+    @Test
+    @DisplayName("Should throw exception when filling more than remaining size")
+    void shouldThrowExceptionWhenFillingMoreThanRemainingSize() {
+        // Given
+        OrderEntity order = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        order.fill(new BigDecimal("8.00"));
+
+        // When & Then
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> order.fill(new BigDecimal("3.00"))
+        );
+    }
+}
@@ -0,0 +1,114 @@
+package firm.brokerage.integration;
+
+import firm.brokerage.dto.CreateOrderRequest;
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.repository.AssetRepository;
+import firm.brokerage.repository.OrderRepository;
+import firm.brokerage.repository.TradeRepository;
+import firm.brokerage.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Enough attempts that a buyer backing off a busy counterparty lock is never given up on
+@SpringBootTest(properties = "brokerage.sequencer.max-attempts=20")
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CrossShardSettlementIntegrationTest {
+
+    // AAPL and NVDA live on different sequencer shards; CUST001 and CUST002 on different lock stripes
+    private static final int ROUNDS = 25;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @BeforeEach
+    void setUp() {
+        tradeRepository.deleteAll();
+        orderRepository.deleteAll();
+        assetRepository.deleteAll();
+
+        assetRepository.save(new AssetEntity("CUST001", "TRY", new BigDecimal("10000.00")));
+        assetRepository.save(new AssetEntity("CUST001", "NVDA", new BigDecimal("50.00")));
+        assetRepository.save(new AssetEntity("CUST002", "TRY", new BigDecimal("10000.00")));
+        assetRepository.save(new AssetEntity("CUST002", "AAPL", new BigDecimal("50.00")));
+    }
+
+    @Test
+    @DisplayName("Should settle two customers trading two assets against each other on two shards without deadlock")
+    void shouldSettleCrossTradesOnTwoShardsConcurrently() throws Exception {
+        // Given - each buyer holds its own lock when it reaches the other customer as counterparty
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            // When
+            CompletableFuture<Void> aaplTrades = CompletableFuture.runAsync(
+                    () -> trade(start, "AAPL", "CUST002", "CUST001"), executor);
+            CompletableFuture<Void> nvdaTrades = CompletableFuture.runAsync(
+                    () -> trade(start, "NVDA", "CUST001", "CUST002"), executor);
+            long started = System.nanoTime();
+            start.countDown();
+            CompletableFuture.allOf(aaplTrades, nvdaTrades).get(30, TimeUnit.SECONDS);
+
+            // Then - no command waited out the customer lock timeout
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started) < 5);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2L * ROUNDS, tradeRepository.count());
+        assertBalance("CUST001", "TRY", "10000.00");
+        assertBalance("CUST001", "AAPL", String.valueOf(ROUNDS));
+        assertBalance("CUST001", "NVDA", String.valueOf(50 - ROUNDS));
+        assertBalance("CUST002", "TRY", "10000.00");
+        assertBalance("CUST002", "AAPL", String.valueOf(50 - ROUNDS));
+        assertBalance("CUST002", "NVDA", String.valueOf(ROUNDS));
+    }
+
+    private void trade(CountDownLatch start, String assetName, String seller, String buyer) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (int i = 0; i < ROUNDS; i++) {
+            orderService.createOrder(new CreateOrderRequest(
+                    seller, assetName, OrderSide.SELL, BigDecimal.ONE, new BigDecimal("100.00")));
+            orderService.createOrder(new CreateOrderRequest(
+                    buyer, assetName, OrderSide.BUY, BigDecimal.ONE, new BigDecimal("100.00")));
+        }
+    }
+
+    private void assertBalance(String customerId, String assetName, String expected) {
+        AssetEntity asset = assetRepository.findByCustomerIdAndAssetName(customerId, assetName).orElseThrow();
+        assertEquals(0, new BigDecimal(expected).compareTo(asset.getSize()),
+                customerId + " " + assetName + " was " + asset.getSize());
+        assertEquals(0, asset.getSize().compareTo(asset.getUsableSize()),
+                customerId + " " + assetName + " still has a reservation");
+    }
+}
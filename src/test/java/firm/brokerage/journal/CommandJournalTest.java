@@ -0,0 +1,202 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private CommandJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private CommandJournal openJournal(int segmentSize) {
+        CommandJournal commandJournal = new CommandJournal(true, directory.toString(), segmentSize, 1, () -> 0);
+        commandJournal.open();
+        return commandJournal;
+    }
+
+    private OrderEntity order() {
+        return new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("10.50"), new BigDecimal("150.25"));
+    }
+
+    @Test
+    @DisplayName("Should number after a stored checkpoint that is ahead of the journal on disk")
+    void shouldNumberAfterCheckpointAheadOfDisk() {
+        // Given - sequences up to 2 are on disk, but checkpoints reached 5 before the tail was lost
+        journal = openJournal(4096);
+        journal.append(JournalEntry.create(order()));
+        journal.awaitDurable(journal.append(JournalEntry.create(order())));
+        journal.close();
+
+        // When
+        journal = new CommandJournal(true, directory.toString(), 4096, 1, () -> 5);
+        journal.open();
+        long sequence = journal.append(JournalEntry.create(order()));
+        journal.awaitDurable(sequence);
+
+        // Then
+        assertEquals(6, sequence);
+        assertEquals(List.of(1L, 2L, 6L), journal.readEntries().stream().map(JournalEntry::getSequence).toList());
+    }
+
+    @Test
+    @DisplayName("Should read back appended entries after reopening")
+    void shouldReadBackAppendedEntriesAfterReopening() {
+        // Given
+        journal = openJournal(4096);
+        OrderEntity order = order();
+        journal.append(JournalEntry.create(order));
+        long sequence = journal.append(JournalEntry.cancel(order));
+        journal.awaitDurable(sequence);
+        journal.close();
+
+        // When
+        journal = openJournal(4096);
+        List<JournalEntry> entries = journal.readEntries();
+
+        // Then
+        assertEquals(2, entries.size());
+        JournalEntry created = entries.get(0);
+        assertEquals(1, created.getSequence());
+        assertEquals(JournalCommandType.CREATE, created.getType());
+        assertEquals(order.getOrderId(), created.getOrderId());
+        assertEquals(0, order.getSize().compareTo(created.getSize()));
+        assertEquals(order.getPrice(), created.getPrice());
+        assertEquals(order.getCreateDate(), created.getCreateDate());
+        assertEquals(JournalCommandType.CANCEL, entries.get(1).getType());
+        assertEquals(2, journal.getLastSequence());
+    }
+
+    @Test
+    @DisplayName("Should continue sequence numbering after reopening")
+    void shouldContinueSequenceAfterReopening() {
+        // Given
+        journal = openJournal(4096);
+        journal.append(JournalEntry.create(order()));
+        journal.close();
+
+        // When
+        journal = openJournal(4096);
+        long sequence = journal.append(JournalEntry.create(order()));
+
+        // Then
+        assertEquals(2, sequence);
+        assertEquals(2, journal.readEntries().size());
+    }
+
+    @Test
+    @DisplayName("Should roll over to a new segment when the current one is full")
+    void shouldRollOverToNewSegment() throws IOException {
+        // Given
+        journal = openJournal(512);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            journal.append(JournalEntry.create(order()));
+        }
+
+        // Then
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertTrue(segments.count() > 1);
+        }
+        List<JournalEntry> entries = journal.readEntries();
+        assertEquals(20, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).getSequence());
+        }
+    }
+
+    @Test
+    @DisplayName("Should delete segments covered by a snapshot and read only the tail")
+    void shouldDeleteCoveredSegmentsAndReadTail() throws IOException {
+        // Given
+        journal = openJournal(512);
+        for (int i = 0; i < 20; i++) {
+            journal.append(JournalEntry.create(order()));
+        }
+        long segmentsBefore;
+        try (Stream<Path> segments = Files.list(directory)) {
+            segmentsBefore = segments.count();
+        }
+
+        // When
+        journal.deleteSegmentsBefore(15);
+
+        // Then
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertTrue(segments.count() < segmentsBefore);
+        }
+        List<JournalEntry> tail = journal.readEntries(15);
+        assertEquals(5, tail.size());
+        assertEquals(16, tail.get(0).getSequence());
+        assertTrue(journal.readEntries().get(0).getSequence() <= 16);
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end of a segment")
+    void shouldIgnoreTornRecord() throws IOException {
+        // Given
+        journal = openJournal(4096);
+        journal.append(JournalEntry.create(order()));
+        journal.append(JournalEntry.create(order()));
+        journal.close();
+        journal = null;
+
+        // Corrupt one payload byte of the second record
+        Path segment;
+        try (Stream<Path> segments = Files.list(directory)) {
+            segment = segments.findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(0);
+            int firstLength = file.readInt();
+            long secondPayload = 8L + firstLength + 8L + 20;
+            file.seek(secondPayload);
+            int value = file.read();
+            file.seek(secondPayload);
+            file.write(value ^ 0xFF);
+        }
+
+        // When
+        journal = openJournal(4096);
+
+        // Then
+        assertEquals(1, journal.readEntries().size());
+        assertEquals(1, journal.getLastSequence());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void shouldDoNothingWhenDisabled() {
+        // Given
+        CommandJournal disabled = new CommandJournal(false, directory.resolve("disabled").toString(), 4096, 1, () -> 0);
+        disabled.open();
+
+        // When & Then
+        assertFalse(disabled.isEnabled());
+        assertDoesNotThrow(() -> disabled.awaitDurable(10));
+        assertFalse(Files.exists(directory.resolve("disabled")));
+    }
+}
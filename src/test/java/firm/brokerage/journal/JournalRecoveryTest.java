@@ -0,0 +1,133 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.exception.InsufficientFundsException;
+import firm.brokerage.repository.JournalCheckpointRepository;
+import firm.brokerage.service.JournalService;
+import firm.brokerage.service.MatchingService;
+import firm.brokerage.service.OrderService;
+import firm.brokerage.service.SnapshotService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalRecoveryTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private JournalCheckpointRepository checkpointRepository;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private MatchingService matchingService;
+
+    @Mock
+    private SnapshotService snapshotService;
+
+    private CommandJournal commandJournal;
+    private JournalService journalService;
+    private JournalRecovery journalRecovery;
+
+    @BeforeEach
+    void setUp() {
+        commandJournal = new CommandJournal(true, directory.toString(), 4096, 1, () -> 0);
+        commandJournal.open();
+        journalService = new JournalService(commandJournal, checkpointRepository);
+        journalRecovery = new JournalRecovery(commandJournal, journalService, orderService, matchingService,
+                snapshotService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandJournal.close();
+    }
+
+    @Test
+    @DisplayName("Should void a journaled command whose transaction rolled back and not replay it")
+    void shouldNotReplayRolledBackCommand() {
+        // Given
+        OrderEntity committed = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, BigDecimal.ONE, new BigDecimal("150.00"));
+        OrderEntity rolledBack = new OrderEntity("CUST002", "AAPL", OrderSide.SELL, BigDecimal.ONE, new BigDecimal("155.00"));
+        recordIn(committed, TransactionSynchronization.STATUS_COMMITTED);
+        recordIn(rolledBack, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // When
+        journalRecovery.run();
+
+        // Then
+        List<JournalEntry> entries = commandJournal.readEntries();
+        assertEquals(3, entries.size());
+        assertEquals(JournalCommandType.ABORT, entries.get(2).getType());
+        assertEquals(2, entries.get(2).getAbortedSequence());
+        verify(orderService).replayCreate(argThat(entry -> entry.getOrderId().equals(committed.getOrderId())));
+        verify(orderService, times(1)).replayCreate(any());
+        verify(snapshotService).markRecovered();
+    }
+
+    @Test
+    @DisplayName("Should skip an entry rejected by a business rule and replay the rest")
+    void shouldSkipBusinessRejection() {
+        // Given
+        OrderEntity rejected = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, BigDecimal.ONE, new BigDecimal("150.00"));
+        OrderEntity accepted = new OrderEntity("CUST002", "AAPL", OrderSide.SELL, BigDecimal.ONE, new BigDecimal("155.00"));
+        recordIn(rejected, TransactionSynchronization.STATUS_COMMITTED);
+        recordIn(accepted, TransactionSynchronization.STATUS_COMMITTED);
+        // Lenient, since the accepted entry calls the same method with other arguments
+        lenient().doThrow(new InsufficientFundsException("Insufficient TRY"))
+                .when(orderService).replayCreate(argThat(entry -> entry.getOrderId().equals(rejected.getOrderId())));
+
+        // When
+        journalRecovery.run();
+
+        // Then
+        verify(orderService, times(2)).replayCreate(any());
+        verify(snapshotService).markRecovered();
+    }
+
+    @Test
+    @DisplayName("Should stop startup on a replay failure that is not a business rejection")
+    void shouldFailOnUnexpectedReplayError() {
+        // Given
+        OrderEntity order = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, BigDecimal.ONE, new BigDecimal("150.00"));
+        recordIn(order, TransactionSynchronization.STATUS_COMMITTED);
+        doThrow(new NullPointerException("bug")).when(orderService).replayCreate(any());
+
+        // When & Then
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> journalRecovery.run());
+        assertInstanceOf(NullPointerException.class, failure.getCause());
+        verify(snapshotService, never()).markRecovered();
+    }
+
+    private void recordIn(OrderEntity order, int completionStatus) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            journalService.record(JournalEntry.create(order));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(completionStatus));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
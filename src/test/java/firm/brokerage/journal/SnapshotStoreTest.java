@@ -0,0 +1,107 @@
+package firm.brokerage.journal;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.entity.OrderStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private BookSnapshot snapshot(long sequence) {
+        OrderEntity order = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        order.fill(new BigDecimal("4.00"));
+        return new BookSnapshot(sequence,
+                List.of(new AssetEntity("CUST001", "TRY", new BigDecimal("10000.00"), new BigDecimal("8500.00"))),
+                List.of(order));
+    }
+
+    private List<Path> files() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.sorted().toList();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read back the latest snapshot")
+    void shouldReadBackLatestSnapshot() {
+        // Given
+        SnapshotStore store = new SnapshotStore(directory.toString(), 2);
+        BookSnapshot written = snapshot(42);
+        store.save(snapshot(10));
+        store.save(written);
+
+        // When
+        BookSnapshot loaded = store.loadLatest().orElseThrow();
+
+        // Then
+        assertEquals(42, loaded.getSequence());
+        AssetEntity balance = loaded.getBalances().get(0);
+        assertEquals("TRY", balance.getAssetName());
+        assertEquals(0, new BigDecimal("8500.00").compareTo(balance.getUsableSize()));
+
+        OrderEntity order = loaded.getOpenOrders().get(0);
+        OrderEntity original = written.getOpenOrders().get(0);
+        assertEquals(original.getOrderId(), order.getOrderId());
+        assertEquals(OrderStatus.PARTIALLY_FILLED, order.getStatus());
+        assertEquals(0, new BigDecimal("6.00").compareTo(order.getRemainingSize()));
+        assertEquals(original.getCreateDate(), order.getCreateDate());
+    }
+
+    @Test
+    @DisplayName("Should keep only the retained number of snapshots")
+    void shouldKeepOnlyRetainedSnapshots() throws IOException {
+        // Given
+        SnapshotStore store = new SnapshotStore(directory.toString(), 2);
+
+        // When
+        store.save(snapshot(1));
+        store.save(snapshot(2));
+        store.save(snapshot(3));
+
+        // Then
+        List<Path> files = files();
+        assertEquals(2, files.size());
+        assertTrue(files.get(0).getFileName().toString().startsWith("00000000000000000002"));
+    }
+
+    @Test
+    @DisplayName("Should fall back to an older snapshot when the newest is corrupt")
+    void shouldFallBackWhenNewestIsCorrupt() throws IOException {
+        // Given
+        SnapshotStore store = new SnapshotStore(directory.toString(), 2);
+        store.save(snapshot(1));
+        store.save(snapshot(2));
+        try (RandomAccessFile file = new RandomAccessFile(files().get(1).toFile(), "rw")) {
+            file.seek(20);
+            int value = file.read();
+            file.seek(20);
+            file.write(value ^ 0xFF);
+        }
+
+        // When & Then
+        assertEquals(1, store.loadLatest().orElseThrow().getSequence());
+    }
+
+    @Test
+    @DisplayName("Should find nothing in an empty directory")
+    void shouldFindNothingInEmptyDirectory() {
+        assertTrue(new SnapshotStore(directory.resolve("missing").toString(), 2).loadLatest().isEmpty());
+    }
+}
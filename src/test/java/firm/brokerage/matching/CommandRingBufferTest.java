@@ -0,0 +1,112 @@
+package firm.brokerage.matching;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandRingBufferTest {
+
+    @Test
+    @DisplayName("Should poll elements in the order they were offered")
+    void shouldPollElementsInOfferOrder() {
+        // Given
+        CommandRingBuffer<Integer> ringBuffer = new CommandRingBuffer<>(4);
+
+        // When
+        ringBuffer.offer(1);
+        ringBuffer.offer(2);
+        ringBuffer.offer(3);
+
+        // Then
+        assertEquals(1, ringBuffer.poll());
+        assertEquals(2, ringBuffer.poll());
+        assertEquals(3, ringBuffer.poll());
+        assertNull(ringBuffer.poll());
+    }
+
+    @Test
+    @DisplayName("Should reject offers when full and accept again after a poll")
+    void shouldRejectOffersWhenFull() {
+        // Given
+        CommandRingBuffer<Integer> ringBuffer = new CommandRingBuffer<>(2);
+        assertTrue(ringBuffer.offer(1));
+        assertTrue(ringBuffer.offer(2));
+
+        // When & Then
+        assertFalse(ringBuffer.offer(3));
+        assertEquals(1, ringBuffer.poll());
+        assertTrue(ringBuffer.offer(3));
+        assertEquals(2, ringBuffer.poll());
+        assertEquals(3, ringBuffer.poll());
+    }
+
+    @Test
+    @DisplayName("Should reject capacity that is not a power of two")
+    void shouldRejectCapacityThatIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandRingBuffer<>(3));
+        assertThrows(IllegalArgumentException.class, () -> new CommandRingBuffer<>(0));
+    }
+
+    @Test
+    @DisplayName("Should deliver every element once with concurrent producers")
+    void shouldDeliverEveryElementOnceWithConcurrentProducers() throws InterruptedException {
+        // Given
+        int producers = 4;
+        int perProducer = 10_000;
+        CommandRingBuffer<Integer> ringBuffer = new CommandRingBuffer<>(64);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ringBuffer.offer(base + i)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        // When
+        start.countDown();
+        boolean[] seen = new boolean[producers * perProducer];
+        int[] lastPerProducer = new int[producers];
+        Arrays.fill(lastPerProducer, -1);
+        int received = 0;
+        while (received < seen.length) {
+            Integer element = ringBuffer.poll();
+            if (element == null) {
+                Thread.yield();
+                continue;
+            }
+            assertFalse(seen[element], "Element delivered twice: " + element);
+            seen[element] = true;
+
+            // Elements of one producer keep their order
+            int producer = element / perProducer;
+            assertTrue(element % perProducer > lastPerProducer[producer]);
+            lastPerProducer[producer] = element % perProducer;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertNull(ringBuffer.poll());
+    }
+}
@@ -0,0 +1,39 @@
+package firm.brokerage.matching;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+
+    @Test
+    @DisplayName("Should convert decimal to units and back")
+    void shouldConvertDecimalToUnitsAndBack() {
+        // When
+        long units = FixedPoint.toUnits(new BigDecimal("150.25"), 2);
+
+        // Then
+        assertEquals(15025, units);
+        assertEquals(new BigDecimal("150.25"), FixedPoint.toDecimal(units, 2));
+    }
+
+    @Test
+    @DisplayName("Should accept trailing zeros beyond the scale")
+    void shouldAcceptTrailingZerosBeyondScale() {
+        assertEquals(10, FixedPoint.toUnits(new BigDecimal("10.00"), 0));
+    }
+
+    @Test
+    @DisplayName("Should reject values with more decimals than the scale")
+    void shouldRejectValuesWithMoreDecimalsThanScale() {
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> FixedPoint.toUnits(new BigDecimal("1.5"), 0)
+        );
+
+        assertTrue(exception.getMessage().contains("1.5"));
+    }
+}
@@ -0,0 +1,194 @@
+package firm.brokerage.matching;
+
+import firm.brokerage.entity.OrderSide;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderBookTest {
+
+    private OrderBook orderBook;
+
+    @BeforeEach
+    void setUp() {
+        orderBook = new OrderBook("AAPL");
+    }
+
+    private BookOrder order(String orderId, String customerId, OrderSide side, String size, String price) {
+        return new BookOrder(orderId, customerId, side,
+                FixedPoint.toUnits(new BigDecimal(price), FixedPoint.PRICE_SCALE),
+                FixedPoint.toUnits(new BigDecimal(size), orderBook.getQuantityScale()));
+    }
+
+    @Test
+    @DisplayName("Should keep best bid and ask sorted by price")
+    void shouldKeepBestBidAndAskSortedByPrice() {
+        // Given
+        orderBook.add(order("B1", "CUST001", OrderSide.BUY, "10", "149.00"));
+        orderBook.add(order("B2", "CUST001", OrderSide.BUY, "10", "150.00"));
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "10", "156.00"));
+        orderBook.add(order("S2", "CUST002", OrderSide.SELL, "10", "155.00"));
+
+        // When & Then
+        assertEquals(0, new BigDecimal("150.00").compareTo(orderBook.getBestBid().orElseThrow()));
+        assertEquals(0, new BigDecimal("155.00").compareTo(orderBook.getBestAsk().orElseThrow()));
+        assertEquals(4, orderBook.size());
+    }
+
+    @Test
+    @DisplayName("Should match best price first at the resting price")
+    void shouldMatchBestPriceFirstAtTheRestingPrice() {
+        // Given
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "10", "148.00"));
+        orderBook.add(order("S2", "CUST003", OrderSide.SELL, "10", "145.00"));
+
+        // When
+        List<Fill> fills = orderBook.match(order("B1", "CUST001", OrderSide.BUY, "10", "150.00"));
+
+        // Then
+        assertEquals(1, fills.size());
+        assertEquals("S2", fills.get(0).getRestingOrder().getOrderId());
+        assertEquals(0, new BigDecimal("145.00").compareTo(fills.get(0).priceAsDecimal()));
+        assertFalse(orderBook.contains("S2"));
+        assertTrue(orderBook.contains("S1"));
+    }
+
+    @Test
+    @DisplayName("Should match earliest order first within a price level")
+    void shouldMatchEarliestOrderFirstWithinPriceLevel() {
+        // Given
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "10", "150.00"));
+        orderBook.add(order("S2", "CUST003", OrderSide.SELL, "10", "150.00"));
+
+        // When
+        List<Fill> fills = orderBook.match(order("B1", "CUST001", OrderSide.BUY, "10", "150.00"));
+
+        // Then
+        assertEquals("S1", fills.get(0).getRestingOrder().getOrderId());
+    }
+
+    @Test
+    @DisplayName("Should not match when prices do not cross")
+    void shouldNotMatchWhenPricesDoNotCross() {
+        // Given
+        orderBook.add(order("B1", "CUST001", OrderSide.BUY, "10", "150.00"));
+
+        // When
+        List<Fill> fills = orderBook.match(order("S1", "CUST002", OrderSide.SELL, "10", "151.00"));
+
+        // Then
+        assertTrue(fills.isEmpty());
+        assertTrue(orderBook.contains("B1"));
+    }
+
+    @Test
+    @DisplayName("Should fill across resting orders and leave the remainder")
+    void shouldFillAcrossRestingOrdersAndLeaveTheRemainder() {
+        // Given
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "4", "149.00"));
+        orderBook.add(order("S2", "CUST003", OrderSide.SELL, "10", "150.00"));
+        BookOrder incoming = order("B1", "CUST001", OrderSide.BUY, "7", "150.00");
+
+        // When
+        List<Fill> fills = orderBook.match(incoming);
+
+        // Then
+        assertEquals(2, fills.size());
+        assertEquals(0, new BigDecimal("4").compareTo(fills.get(0).sizeAsDecimal()));
+        assertEquals(0, new BigDecimal("149.00").compareTo(fills.get(0).priceAsDecimal()));
+        assertEquals(0, new BigDecimal("3").compareTo(fills.get(1).sizeAsDecimal()));
+        assertFalse(incoming.hasRemaining());
+        assertFalse(orderBook.contains("S1"));
+        assertEquals(0, new BigDecimal("7").compareTo(
+                FixedPoint.toDecimal(orderBook.remove("S2").orElseThrow().getRemainingSize(), orderBook.getQuantityScale())));
+    }
+
+    @Test
+    @DisplayName("Should cancel the incoming order when it reaches a resting order of the same customer")
+    void shouldCancelIncomingOrderToPreventSelfTrade() {
+        // Given
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "4", "149.00"));
+        orderBook.add(order("S2", "CUST001", OrderSide.SELL, "10", "150.00"));
+        orderBook.add(order("S3", "CUST003", OrderSide.SELL, "10", "150.00"));
+        BookOrder incoming = order("B1", "CUST001", OrderSide.BUY, "10", "150.00");
+
+        // When
+        List<Fill> fills = orderBook.match(incoming);
+
+        // Then - filled up to the own order, then stopped instead of trading past it
+        assertEquals(1, fills.size());
+        assertEquals("S1", fills.get(0).getRestingOrder().getOrderId());
+        assertTrue(incoming.isSelfTradeCanceled());
+        assertEquals(0, new BigDecimal("6").compareTo(
+                FixedPoint.toDecimal(incoming.getRemainingSize(), orderBook.getQuantityScale())));
+        assertTrue(orderBook.contains("S2"));
+        assertTrue(orderBook.contains("S3"));
+        assertEquals(0, new BigDecimal("150.00").compareTo(orderBook.getBestAsk().orElseThrow()));
+    }
+
+    @Test
+    @DisplayName("Should remove order and empty price level")
+    void shouldRemoveOrderAndEmptyPriceLevel() {
+        // Given
+        orderBook.add(order("B1", "CUST001", OrderSide.BUY, "10", "150.00"));
+
+        // When
+        assertTrue(orderBook.remove("B1").isPresent());
+
+        // Then
+        assertFalse(orderBook.remove("B1").isPresent());
+        assertTrue(orderBook.getBestBid().isEmpty());
+        assertEquals(0, orderBook.size());
+    }
+
+    @Test
+    @DisplayName("Should aggregate resting size per price level for the best levels")
+    void shouldAggregateDepthPerPriceLevel() {
+        // Given
+        orderBook.add(order("B1", "CUST001", OrderSide.BUY, "10", "149.00"));
+        orderBook.add(order("B2", "CUST001", OrderSide.BUY, "5", "150.00"));
+        orderBook.add(order("B3", "CUST003", OrderSide.BUY, "2", "150.00"));
+        orderBook.add(order("B4", "CUST003", OrderSide.BUY, "1", "148.00"));
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "4", "155.00"));
+
+        // When
+        Map<Long, Long> bids = orderBook.depth(OrderSide.BUY, 2);
+        orderBook.match(order("S2", "CUST002", OrderSide.SELL, "3", "150.00"));
+        Map<Long, Long> bidsAfterFill = orderBook.depth(OrderSide.BUY, 2);
+
+        // Then
+        assertEquals(List.of(15000L, 14900L), List.copyOf(bids.keySet()));
+        assertEquals(700L, bids.get(15000L));
+        assertEquals(1000L, bids.get(14900L));
+        assertEquals(400L, bidsAfterFill.get(15000L));
+        assertEquals(Map.of(15500L, 400L), orderBook.depth(OrderSide.SELL, 2));
+    }
+
+    @Test
+    @DisplayName("Should fill in whole units for an asset with quantity scale zero")
+    void shouldFillInWholeUnitsForScaleZero() {
+        // Given
+        orderBook = new OrderBook("AAPL", 0);
+        orderBook.add(order("S1", "CUST002", OrderSide.SELL, "3", "150.00"));
+
+        // When
+        List<Fill> fills = orderBook.match(order("B1", "CUST001", OrderSide.BUY, "5", "150.00"));
+
+        // Then
+        assertEquals(3, fills.get(0).getSize());
+        assertEquals(15000, fills.get(0).getPrice());
+        assertEquals(0, new BigDecimal("3").compareTo(fills.get(0).sizeAsDecimal()));
+    }
+
+    @Test
+    @DisplayName("Should reject quantity scale the schema cannot hold")
+    void shouldRejectQuantityScaleBeyondSchema() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderBook("AAPL", 3));
+    }
+}
@@ -0,0 +1,251 @@
+package firm.brokerage.matching;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.AssetId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OrderSequencerTest {
+
+    private PlatformTransactionManager transactionManager;
+    private OrderSequencer orderSequencer;
+
+    @BeforeEach
+    void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        orderSequencer = new OrderSequencer(transactionManager, 2, 8);
+        orderSequencer.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderSequencer.stop();
+    }
+
+    @Test
+    @DisplayName("Should run commands of one asset in submission order on one thread")
+    void shouldRunCommandsOfOneAssetInOrderOnOneThread() {
+        // Given
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 100)
+                .mapToObj(i -> orderSequencer.submit("AAPL", () -> {
+                    executed.add(i);
+                    threads.add(Thread.currentThread().getName());
+                    return i;
+                }))
+                .toList();
+        futures.forEach(CompletableFuture::join);
+
+        // Then
+        assertEquals(IntStream.range(0, 100).boxed().toList(), executed);
+        assertEquals(1, threads.stream().distinct().count());
+        assertTrue(threads.get(0).startsWith("order-sequencer-"));
+    }
+
+    @Test
+    @DisplayName("Should run each command in its own transaction")
+    void shouldRunEachCommandInItsOwnTransaction() {
+        // When
+        String result = orderSequencer.execute("AAPL", () -> "done");
+
+        // Then
+        assertEquals("done", result);
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should rethrow command exception to the caller and roll back")
+    void shouldRethrowCommandExceptionAndRollBack() {
+        // When
+        IllegalStateException exception = assertThrows(
+                IllegalStateException.class,
+                () -> orderSequencer.execute("AAPL", () -> {
+                    throw new IllegalStateException("boom");
+                })
+        );
+
+        // Then
+        assertEquals("boom", exception.getMessage());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+    }
+
+    @Test
+    @DisplayName("Should run a command submitted from the sequencer thread inline")
+    void shouldRunNestedCommandInline() {
+        // Given
+        AtomicReference<String> outer = new AtomicReference<>();
+        AtomicReference<String> inner = new AtomicReference<>();
+
+        // When
+        orderSequencer.execute("AAPL", () -> {
+            outer.set(Thread.currentThread().getName());
+            return orderSequencer.execute("AAPL", () -> {
+                inner.set(Thread.currentThread().getName());
+                return null;
+            });
+        });
+
+        // Then
+        assertEquals(outer.get(), inner.get());
+    }
+
+    @Test
+    @DisplayName("Should run exclusive action after earlier commands and before later ones")
+    void shouldRunExclusiveActionBetweenCommands() {
+        // Given
+        List<String> events = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Boolean> before = orderSequencer.submit("AAPL", () -> events.add("AAPL"));
+        CompletableFuture<Boolean> beforeOther = orderSequencer.submit("GOOGL", () -> events.add("GOOGL"));
+
+        // When
+        orderSequencer.runExclusive(() -> {
+            events.add("snapshot");
+            orderSequencer.submit("AAPL", () -> events.add("after"));
+            sleep(50);
+            assertEquals(3, events.size());
+        });
+        orderSequencer.execute("AAPL", () -> null);
+
+        // Then
+        assertTrue(before.isDone());
+        assertTrue(beforeOther.isDone());
+        assertEquals("snapshot", events.get(2));
+        assertEquals("after", events.get(3));
+    }
+
+    @Test
+    @DisplayName("Should refuse to pause the sequencer from its own thread")
+    void shouldRefuseToPauseFromSequencerThread() {
+        assertThrows(IllegalStateException.class,
+                () -> orderSequencer.execute("AAPL", () -> {
+                    orderSequencer.runExclusive(() -> { });
+                    return null;
+                }));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Should retry a command after a version conflict and count the conflict")
+    void shouldRetryCommandAfterVersionConflict() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderSequencer retryingSequencer = new OrderSequencer(transactionManager, meterRegistry, 1, 8, 3);
+        retryingSequencer.start();
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            // When
+            String result = retryingSequencer.execute("AAPL", () -> {
+                if (attempts.incrementAndGet() < 3) {
+                    throw new ObjectOptimisticLockingFailureException(AssetEntity.class, new AssetId("CUST001", "TRY"));
+                }
+                return "done";
+            });
+
+            // Then
+            assertEquals("done", result);
+            assertEquals(3, attempts.get());
+            assertEquals(2.0, meterRegistry.get("brokerage.sequencer.version.conflicts")
+                    .tag("asset", "TRY").tag("outcome", "retried").counter().count());
+            assertNull(meterRegistry.find("brokerage.sequencer.version.conflicts").tagKeys("customer").counter());
+            verify(transactionManager, times(2)).rollback(any());
+        } finally {
+            retryingSequencer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should give up after the last attempt and rethrow the version conflict")
+    void shouldGiveUpAfterLastAttempt() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderSequencer retryingSequencer = new OrderSequencer(transactionManager, meterRegistry, 1, 8, 2);
+        retryingSequencer.start();
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            // When & Then
+            assertThrows(ObjectOptimisticLockingFailureException.class, () -> retryingSequencer.execute("AAPL", () -> {
+                attempts.incrementAndGet();
+                throw new ObjectOptimisticLockingFailureException(AssetEntity.class, new AssetId("CUST001", "TRY"));
+            }));
+            assertEquals(2, attempts.get());
+            assertEquals(1.0, meterRegistry.get("brokerage.sequencer.version.conflicts")
+                    .tag("outcome", "failed").counter().count());
+        } finally {
+            retryingSequencer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should retry a command that backed off a customer lock without counting a version conflict")
+    void shouldRetryCommandAfterBusyCustomerLock() {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OrderSequencer retryingSequencer = new OrderSequencer(transactionManager, meterRegistry, 1, 8, 3);
+        retryingSequencer.start();
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            // When
+            String result = retryingSequencer.execute("AAPL", () -> {
+                if (attempts.incrementAndGet() < 2) {
+                    throw new CannotAcquireLockException("Customer lock taken out of stripe order is busy");
+                }
+                return "done";
+            });
+
+            // Then
+            assertEquals("done", result);
+            assertEquals(2, attempts.get());
+            assertTrue(meterRegistry.find("brokerage.sequencer.version.conflicts").counters().isEmpty());
+            verify(transactionManager, times(1)).rollback(any());
+        } finally {
+            retryingSequencer.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not retry commands failing for other reasons")
+    void shouldNotRetryOtherFailures() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> orderSequencer.execute("AAPL", () -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("bad order");
+        }));
+        assertEquals(1, attempts.get());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
@@ -176,4 +177,63 @@ class AssetRepositoryTest {
         assertEquals(new BigDecimal("1300.00"), result.get().getUsableSize()); // 1500 - 200
         assertEquals(new BigDecimal("200.00"), result.get().getReservedAmount());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should bump version on update and reject a stale write")
+    void shouldRejectStaleWriteByVersion() {
+        // Given
+        AssetEntity asset = assetRepository.saveAndFlush(new AssetEntity("CUST001", "AAPL", new BigDecimal("100.00")));
+        Long readVersion = asset.getVersion();
+        asset.reserve(new BigDecimal("10.00"));
+        assetRepository.saveAndFlush(asset);
+
+        AssetEntity stale = new AssetEntity("CUST001", "AAPL", new BigDecimal("100.00"), new BigDecimal("80.00"));
+        stale.setVersion(readVersion);
+
+        // When & Then
+        assertEquals(readVersion + 1, asset.getVersion());
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> assetRepository.saveAndFlush(stale));
+    }
+
+    @Test
+    @DisplayName("Should reserve with a conditional update only while enough is usable")
+    void shouldReserveUsableConditionally() {
+        // Given
+        assetRepository.saveAndFlush(new AssetEntity("CUST001", "TRY", new BigDecimal("1000.00")));
+
+        // When
+        int reserved = assetRepository.reserveUsable("CUST001", "TRY", new BigDecimal("600.00"));
+        int refused = assetRepository.reserveUsable("CUST001", "TRY", new BigDecimal("600.00"));
+        int missing = assetRepository.reserveUsable("CUST001", "MSFT", new BigDecimal("1.00"));
+        assetRepository.refreshIfLoaded("CUST001", "TRY");
+
+        // Then
+        assertEquals(1, reserved);
+        assertEquals(0, refused);
+        assertEquals(0, missing);
+        AssetEntity result = assetRepository.findByCustomerIdAndAssetName("CUST001", "TRY").orElseThrow();
+        assertEquals(0, new BigDecimal("400.00").compareTo(result.getUsableSize()));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(result.getSize()));
+    }
+
+    @Test
+    @DisplayName("Should release with a conditional update only while that much is reserved")
+    void shouldReleaseUsableConditionally() {
+        // Given
+        assetRepository.saveAndFlush(new AssetEntity("CUST001", "AAPL", new BigDecimal("50.00"), new BigDecimal("30.00")));
+
+        // When
+        int refused = assetRepository.releaseUsable("CUST001", "AAPL", new BigDecimal("25.00"));
+        int released = assetRepository.releaseUsable("CUST001", "AAPL", new BigDecimal("20.00"));
+        int missing = assetRepository.releaseUsable("CUST001", "MSFT", new BigDecimal("1.00"));
+        assetRepository.refreshIfLoaded("CUST001", "AAPL");
+
+        // Then
+        assertEquals(0, refused);
+        assertEquals(1, released);
+        assertEquals(0, missing);
+        AssetEntity result = assetRepository.findByCustomerIdAndAssetName("CUST001", "AAPL").orElseThrow();
+        assertEquals(0, new BigDecimal("50.00").compareTo(result.getUsableSize()));
+        assertEquals(1L, result.getVersion());
+    }
+}
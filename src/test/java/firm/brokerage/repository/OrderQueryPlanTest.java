@@ -0,0 +1,109 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the order indexes: each hot repository query must be answered from an index
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+class OrderQueryPlanTest {
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 10, 0);
+        for (int i = 0; i < 50; i++) {
+            OrderEntity order = new OrderEntity("ORD" + i, "CUST00" + (i % 5), i % 2 == 0 ? "AAPL" : "MSFT",
+                    OrderSide.BUY, new BigDecimal("1.00"), new BigDecimal("100.00"), base.plusMinutes(i));
+            if (i % 3 == 0) {
+                order.match();
+            }
+            orderRepository.save(order);
+        }
+        orderRepository.flush();
+    }
+
+    @Test
+    @DisplayName("Should answer findByCustomerIdAndDateRange from an index")
+    void shouldUseIndexForCustomerDateRange() {
+        // When
+        String plan = explain("SELECT * FROM orders WHERE customer_id = 'CUST001' " +
+                "AND create_date >= TIMESTAMP '2025-01-06 10:00:00' AND create_date <= TIMESTAMP '2025-01-06 11:00:00' " +
+                "ORDER BY create_date DESC");
+
+        // Then
+        assertIndexScan(plan);
+    }
+
+    @Test
+    @DisplayName("Should answer findByCustomerIdAndStatusOrderByCreateDateDesc from the customer and status index")
+    void shouldUseIndexForCustomerStatus() {
+        // When
+        String plan = explain("SELECT * FROM orders WHERE customer_id = 'CUST001' AND status = 'PENDING' " +
+                "ORDER BY create_date DESC");
+
+        // Then
+        assertIndexScan(plan);
+        assertTrue(plan.toLowerCase().contains("idx_orders_customer_status_create_date"), plan);
+    }
+
+    @Test
+    @DisplayName("Should answer findByStatusOrderByCreateDateAsc from the status index")
+    void shouldUseIndexForStatusInArrivalOrder() {
+        // When
+        String plan = explain("SELECT * FROM orders WHERE status = 'PENDING' ORDER BY create_date ASC");
+
+        // Then
+        assertIndexScan(plan);
+        assertTrue(plan.toLowerCase().contains("idx_orders_status_create_date"), plan);
+    }
+
+    @Test
+    @DisplayName("Should answer findByAssetNameAndStatusInOrderByCreateDateAsc from the asset and status index")
+    void shouldUseIndexForBookLoad() {
+        // When
+        String plan = explain("SELECT * FROM orders WHERE asset_name = 'AAPL' " +
+                "AND status IN ('PENDING', 'PARTIALLY_FILLED') ORDER BY create_date ASC");
+
+        // Then
+        assertIndexScan(plan);
+        assertTrue(plan.toLowerCase().contains("idx_orders_asset_status_create_date"), plan);
+    }
+
+    @Test
+    @DisplayName("Should stream all orders in arrival order from the create date index")
+    void shouldUseIndexForStreamAll() {
+        // When
+        String plan = explain("SELECT * FROM orders ORDER BY create_date ASC");
+
+        // Then
+        assertTrue(plan.toLowerCase().contains("idx_orders_create_date"), plan);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private static void assertIndexScan(String plan) {
+        assertFalse(plan.contains("tableScan"), () -> "Query degraded to a table scan: " + plan);
+    }
+}
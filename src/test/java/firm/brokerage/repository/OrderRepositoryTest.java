@@ -13,6 +13,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -102,4 +103,92 @@ class OrderRepositoryTest {
         assertEquals(OrderStatus.PENDING, result.get(0).getStatus());
         assertEquals("CUST001", result.get(0).getCustomerId());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should insert orders in one batch")
+    void shouldInsertOrdersInOneBatch() {
+        // Given
+        OrderEntity first = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        OrderEntity second = new OrderEntity("CUST001", "AAPL", OrderSide.SELL,
+                new BigDecimal("5.00"), new BigDecimal("155.00"));
+
+        // When
+        orderRepository.insertAll(List.of(first, second));
+
+        // Then
+        List<OrderEntity> result = orderRepository.findAllById(List.of(first.getOrderId(), second.getOrderId()));
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(order -> order.getStatus() == OrderStatus.PENDING));
+    }
+
+    @Test
+    @DisplayName("Should cancel only orders that are still open in one update")
+    void shouldUpdateStatusOfOpenOrdersOnly() {
+        // Given
+        OrderEntity open = orderRepository.save(new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00")));
+        OrderEntity matched = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        matched.match();
+        orderRepository.save(matched);
+
+        // When
+        int updated = orderRepository.updateStatus(List.of(open.getOrderId(), matched.getOrderId()),
+                OrderStatus.OPEN, OrderStatus.CANCELED);
+
+        // Then
+        assertEquals(1, updated);
+        assertEquals(OrderStatus.CANCELED, orderRepository.findById(open.getOrderId()).orElseThrow().getStatus());
+        assertEquals(OrderStatus.MATCHED, orderRepository.findById(matched.getOrderId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Should page through a customer's orders newest first from a keyset position")
+    void shouldFindPageAfterPosition() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 10, 0);
+        for (int i = 0; i < 5; i++) {
+            // ORD003 and ORD004 share a create date, so the order ID breaks the tie
+            orderRepository.save(new OrderEntity("ORD00" + i, "CUST001", i % 2 == 0 ? "AAPL" : "MSFT",
+                    OrderSide.BUY, new BigDecimal("1.00"), new BigDecimal("100.00"),
+                    base.plusMinutes(Math.min(i, 3))));
+        }
+        orderRepository.save(new OrderEntity("CUST002", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00")));
+
+        // When
+        List<OrderEntity> firstPage = orderRepository.findPage("CUST001", null, null, null, null, 2);
+        OrderEntity last = firstPage.get(1);
+        List<OrderEntity> secondPage = orderRepository.findPage("CUST001", null, null,
+                last.getCreateDate(), last.getOrderId(), 10);
+        List<OrderEntity> aaplOnly = orderRepository.findPage("CUST001", OrderStatus.PENDING, "AAPL", null, null, 10);
+
+        // Then
+        assertEquals(List.of("ORD004", "ORD003"), firstPage.stream().map(OrderEntity::getOrderId).toList());
+        assertEquals(List.of("ORD002", "ORD001", "ORD000"), secondPage.stream().map(OrderEntity::getOrderId).toList());
+        assertEquals(List.of("ORD004", "ORD002", "ORD000"), aaplOnly.stream().map(OrderEntity::getOrderId).toList());
+    }
+
+    @Test
+    @DisplayName("Should stream a customer's orders oldest first")
+    void shouldStreamOrdersOfCustomer() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 10, 0);
+        orderRepository.save(new OrderEntity("ORD002", "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00"), base.plusMinutes(1)));
+        orderRepository.save(new OrderEntity("ORD001", "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00"), base));
+        orderRepository.save(new OrderEntity("ORD003", "CUST002", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00"), base));
+
+        // When
+        List<String> orderIds;
+        try (Stream<OrderEntity> orders = orderRepository.streamByCustomerIdOrderByCreateDateAsc("CUST001")) {
+            orderIds = orders.map(OrderEntity::getOrderId).toList();
+        }
+
+        // Then
+        assertEquals(List.of("ORD001", "ORD002"), orderIds);
+    }
+}
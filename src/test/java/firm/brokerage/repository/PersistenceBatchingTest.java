@@ -0,0 +1,148 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.entity.OrderStatus;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Counts the statements sent for bulk order and asset writes; unbatched, each row costs at least one
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class PersistenceBatchingTest {
+
+    private static final int ROWS = 120;
+    // hibernate.jdbc.batch_size of the base profile
+    private static final int BATCH_SIZE = 50;
+    private static final int BATCHES = (ROWS + BATCH_SIZE - 1) / BATCH_SIZE;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private AssetRepository assetRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should insert new orders in batches without selecting them first")
+    void shouldInsertNewOrdersInBatches() {
+        // Given
+        List<OrderEntity> orders = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            orders.add(new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("1.00"), new BigDecimal("150.00")));
+        }
+        statistics.clear();
+
+        // When
+        orderRepository.saveAll(orders);
+        orderRepository.flush();
+
+        // Then
+        assertEquals(ROWS, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertTrue(statistics.getPrepareStatementCount() <= BATCHES,
+                () -> statistics.getPrepareStatementCount() + " statements for " + ROWS + " inserts");
+    }
+
+    @Test
+    @DisplayName("Should write the order and asset updates of a sweep in batches")
+    void shouldUpdateSweptOrdersAndAssetsInBatches() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 10, 0);
+        for (int i = 0; i < ROWS; i++) {
+            orderRepository.save(new OrderEntity("ORD" + i, "CUST" + i, "AAPL", OrderSide.BUY,
+                    new BigDecimal("2.00"), new BigDecimal("150.00"), base.plusSeconds(i)));
+            assetRepository.save(new AssetEntity("CUST" + i, "TRY", new BigDecimal("1000.00")));
+        }
+        orderRepository.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        List<OrderEntity> orders = orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN);
+        List<AssetEntity> assets = assetRepository.findAll();
+        orders.forEach(order -> order.fill(BigDecimal.ONE));
+        assets.forEach(asset -> asset.reserve(new BigDecimal("150.00")));
+        orderRepository.saveAll(orders);
+        assetRepository.saveAll(assets);
+        orderRepository.flush();
+
+        // Then
+        assertEquals(2L * ROWS, statistics.getEntityUpdateCount());
+        // Two reads, then the update batches of each table
+        assertTrue(statistics.getPrepareStatementCount() <= 2 + 2 * BATCHES,
+                () -> statistics.getPrepareStatementCount() + " statements for " + 2 * ROWS + " updates");
+    }
+
+    @Test
+    @DisplayName("Should cancel an order with one read and two updates, keeping the order managed")
+    void shouldCancelOrderWithoutReloadingIt() {
+        // Given
+        orderRepository.save(new OrderEntity("ORD1", "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("2.00"), new BigDecimal("150.00"), LocalDateTime.of(2025, 1, 6, 10, 0)));
+        assetRepository.save(new AssetEntity("CUST001", "TRY", new BigDecimal("1000.00"), new BigDecimal("700.00")));
+        orderRepository.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        // When
+        OrderEntity order = orderRepository.findById("ORD1").orElseThrow();
+        assetRepository.releaseUsable("CUST001", "TRY", new BigDecimal("300.00"));
+        assetRepository.refreshIfLoaded("CUST001", "TRY");
+        order.cancel();
+        orderRepository.save(order);
+        orderRepository.flush();
+
+        // Then
+        assertTrue(entityManager.contains(order));
+        assertEquals(1, statistics.getEntityLoadCount());
+        // The order read, the asset release and the order update
+        assertEquals(3, statistics.getPrepareStatementCount(),
+                () -> statistics.getPrepareStatementCount() + " statements for a cancel");
+    }
+
+    @Test
+    @DisplayName("Should update an order inserted by a JDBC batch instead of inserting it again")
+    void shouldUpdateBatchInsertedOrder() {
+        // Given
+        OrderEntity order = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("2.00"), new BigDecimal("150.00"));
+        orderRepository.insertAll(List.of(order));
+
+        // When
+        order.fill(BigDecimal.ONE);
+        orderRepository.save(order);
+        orderRepository.flush();
+        entityManager.clear();
+
+        // Then
+        OrderEntity stored = orderRepository.findById(order.getOrderId()).orElseThrow();
+        assertEquals(OrderStatus.PARTIALLY_FILLED, stored.getStatus());
+        assertEquals(1L, orderRepository.count());
+    }
+}
@@ -0,0 +1,68 @@
+package firm.brokerage.repository;
+
+import firm.brokerage.entity.TradeEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class TradeRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 6, 10, 0);
+
+    @Autowired
+    private TradeRepository tradeRepository;
+
+    @Test
+    @DisplayName("Should insert trades in one batch and read them back")
+    void shouldInsertTrades() {
+        // Given
+        TradeEntity trade = new TradeEntity("AAPL", "BUY001", "SELL001", new BigDecimal("150.00"), new BigDecimal("2.00"));
+
+        // When
+        tradeRepository.insertAll(List.of(trade));
+
+        // Then
+        TradeEntity stored = tradeRepository.findById(trade.getTradeId()).orElseThrow();
+        assertEquals("BUY001", stored.getBuyOrderId());
+        assertEquals("SELL001", stored.getSellOrderId());
+        assertEquals(0, new BigDecimal("150.00").compareTo(stored.getPrice()));
+        assertEquals(0, new BigDecimal("2.00").compareTo(stored.getSize()));
+    }
+
+    @Test
+    @DisplayName("Should page an asset's trades in a time range by seeking past the last trade")
+    void shouldPageTradesByAssetAndTimeRange() {
+        // Given
+        TradeEntity first = trade(1L, "AAPL", BASE);
+        TradeEntity second = trade(2L, "AAPL", BASE.plusMinutes(1));
+        TradeEntity sameTime = trade(3L, "AAPL", BASE.plusMinutes(1));
+        TradeEntity atEnd = trade(4L, "AAPL", BASE.plusMinutes(2));
+        TradeEntity otherAsset = trade(5L, "MSFT", BASE.plusMinutes(1));
+        tradeRepository.insertAll(List.of(first, second, sameTime, atEnd, otherAsset));
+
+        // When
+        List<TradeEntity> firstPage = tradeRepository.findPage("AAPL", BASE, -1, BASE.plusMinutes(2), Limit.of(2));
+        List<TradeEntity> secondPage = tradeRepository.findPage("AAPL", second.getTradeDate(), second.getTradeId(),
+                BASE.plusMinutes(2), Limit.of(2));
+
+        // Then
+        assertEquals(List.of(1L, 2L), firstPage.stream().map(TradeEntity::getTradeId).toList());
+        assertEquals(List.of(3L), secondPage.stream().map(TradeEntity::getTradeId).toList());
+    }
+
+    private static TradeEntity trade(long tradeId, String assetName, LocalDateTime tradeDate) {
+        return new TradeEntity(tradeId, assetName, "BUY" + tradeId, "SELL" + tradeId,
+                new BigDecimal("100.00"), new BigDecimal("1.00"), tradeDate);
+    }
+}
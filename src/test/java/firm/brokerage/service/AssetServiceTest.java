@@ -1,6 +1,7 @@
 package firm.brokerage.service;
 
 import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.AssetId;
 import firm.brokerage.entity.OrderSide;
 import firm.brokerage.exception.AssetNotFoundException;
@@ -15,12 +16,19 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.Set;
+import java.util.Map;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,12 +37,23 @@ class AssetServiceTest {
     @Mock
     private AssetRepository assetRepository;
 
+    @Mock
+    private CustomerLocks customerLocks;
+
+    @Mock
+    private BalanceStore balanceStore;
+
     @InjectMocks
     private AssetService assetService;
 
     private AssetEntity tryAsset;
     private AssetEntity stockAsset;
 
+    // Matches an amount by value, whatever its scale
+    private static BigDecimal amountOf(String value) {
+        return argThat(amount -> amount != null && amount.compareTo(new BigDecimal(value)) == 0);
+    }
+
     // Helper method for BigDecimal assertions
     private void assertBigDecimalEquals(BigDecimal expected, BigDecimal actual) {
         assertEquals(0, expected.compareTo(actual),
@@ -108,20 +127,15 @@ class AssetServiceTest {
         OrderSide orderSide = OrderSide.BUY;
         BigDecimal size = new BigDecimal("10.00");
         BigDecimal price = new BigDecimal("150.00");
-        BigDecimal requiredTry = new BigDecimal("1500.00");
-
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
-                .thenReturn(Optional.of(tryAsset));
-        when(assetRepository.save(any(AssetEntity.class))).thenReturn(tryAsset);
+        when(assetRepository.reserveUsable(eq(customerId), eq("TRY"), amountOf("1500.00"))).thenReturn(1);
 
         // When
         assetService.reserveAssetsForOrder(customerId, assetName, orderSide, size, price);
 
-        // Then
-        verify(assetRepository).findByCustomerIdAndAssetName(customerId, "TRY");
-        verify(assetRepository).save(tryAsset);
-        // Fixed: Use BigDecimal comparison instead of assertEquals
-        assertBigDecimalEquals(new BigDecimal("8500.00"), tryAsset.getUsableSize());
+        // Then - one conditional UPDATE, no read and no entity save
+        verify(assetRepository).reserveUsable(eq(customerId), eq("TRY"), amountOf("1500.00"));
+        verify(assetRepository, never()).findByCustomerIdAndAssetName(customerId, "TRY");
+        verify(assetRepository, never()).save(any(AssetEntity.class));
     }
 
     @Test
@@ -134,18 +148,14 @@ class AssetServiceTest {
         BigDecimal size = new BigDecimal("10.00");
         BigDecimal price = new BigDecimal("150.00");
 
-        when(assetRepository.findByCustomerIdAndAssetName(customerId, assetName))
-                .thenReturn(Optional.of(stockAsset));
-        when(assetRepository.save(any(AssetEntity.class))).thenReturn(stockAsset);
+        when(assetRepository.reserveUsable(eq(customerId), eq(assetName), amountOf("10.00"))).thenReturn(1);
 
         // When
         assetService.reserveAssetsForOrder(customerId, assetName, orderSide, size, price);
 
         // Then
-        verify(assetRepository).findByCustomerIdAndAssetName(customerId, assetName);
-        verify(assetRepository).save(stockAsset);
-        // Fixed: Use BigDecimal comparison instead of assertEquals
-        assertBigDecimalEquals(new BigDecimal("40.00"), stockAsset.getUsableSize());
+        verify(assetRepository).reserveUsable(eq(customerId), eq(assetName), amountOf("10.00"));
+        verify(assetRepository, never()).save(any(AssetEntity.class));
     }
 
     @Test
@@ -170,4 +180,235 @@ class AssetServiceTest {
         assertTrue(exception.getMessage().contains("TRY"));
         assertTrue(exception.getMessage().contains(customerId));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should throw asset not found when reserving an asset the customer does not hold")
+    void shouldThrowAssetNotFoundWhenReservingMissingAsset() {
+        // Given
+        when(assetRepository.findByCustomerIdAndAssetName("CUST001", "MSFT")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(AssetNotFoundException.class, () -> assetService.reserveAssetsForOrder(
+                "CUST001", "MSFT", OrderSide.SELL, new BigDecimal("1.00"), new BigDecimal("400.00")));
+    }
+
+    @Test
+    @DisplayName("Should release canceled order with one conditional update")
+    void shouldReleaseCanceledOrderWithOneUpdate() {
+        // Given
+        when(assetRepository.releaseUsable(eq("CUST001"), eq("TRY"), amountOf("1500.00"))).thenReturn(1);
+
+        // When
+        assetService.releaseAssetsForOrder("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+
+        // Then
+        verify(assetRepository).releaseUsable(eq("CUST001"), eq("TRY"), amountOf("1500.00"));
+        verify(assetRepository).refreshIfLoaded("CUST001", "TRY");
+        verify(assetRepository, never()).findByCustomerIdAndAssetName(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should throw asset not found when releasing into a missing asset")
+    void shouldThrowAssetNotFoundWhenReleasingMissingAsset() {
+        // When & Then
+        assertThrows(AssetNotFoundException.class, () -> assetService.releaseAssetsForOrder(
+                "CUST001", "MSFT", OrderSide.SELL, new BigDecimal("1.00"), new BigDecimal("400.00")));
+    }
+
+    @Test
+    @DisplayName("Should refuse to release more than is reserved")
+    void shouldRefuseToReleaseMoreThanReserved() {
+        // Given - nothing of the 10000 TRY is reserved
+        when(assetRepository.findByCustomerIdAndAssetName("CUST001", "TRY")).thenReturn(Optional.of(tryAsset));
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> assetService.releaseAssetsForOrder(
+                "CUST001", "AAPL", OrderSide.BUY, new BigDecimal("10.00"), new BigDecimal("150.00")));
+        verify(assetRepository, never()).refreshIfLoaded(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should settle BUY order from reservation and release price improvement")
+    void shouldSettleBuyOrderFromReservationAndReleasePriceImprovement() {
+        // Given - 10 AAPL reserved at limit 150, executed at 145
+        String customerId = "CUST001";
+        tryAsset.reserve(new BigDecimal("1500.00"));
+
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
+                .thenReturn(Optional.of(tryAsset));
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "AAPL"))
+                .thenReturn(Optional.of(stockAsset));
+
+        // When
+        assetService.processMatchedOrder(customerId, "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"), new BigDecimal("145.00"));
+
+        // Then
+        assertBigDecimalEquals(new BigDecimal("8550.00"), tryAsset.getSize());
+        assertBigDecimalEquals(new BigDecimal("8550.00"), tryAsset.getUsableSize());
+        assertBigDecimalEquals(new BigDecimal("60.00"), stockAsset.getSize());
+        assertBigDecimalEquals(new BigDecimal("60.00"), stockAsset.getUsableSize());
+    }
+
+    @Test
+    @DisplayName("Should settle SELL order from reserved asset")
+    void shouldSettleSellOrderFromReservedAsset() {
+        // Given - 10 AAPL reserved for sale
+        String customerId = "CUST001";
+        stockAsset.reserve(new BigDecimal("10.00"));
+
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "AAPL"))
+                .thenReturn(Optional.of(stockAsset));
+        when(assetRepository.findByCustomerIdAndAssetName(customerId, "TRY"))
+                .thenReturn(Optional.of(tryAsset));
+
+        // When
+        assetService.processMatchedOrder(customerId, "AAPL", OrderSide.SELL,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+
+        // Then
+        assertBigDecimalEquals(new BigDecimal("40.00"), stockAsset.getSize());
+        assertBigDecimalEquals(new BigDecimal("40.00"), stockAsset.getUsableSize());
+        assertBigDecimalEquals(new BigDecimal("11500.00"), tryAsset.getSize());
+        assertBigDecimalEquals(new BigDecimal("11500.00"), tryAsset.getUsableSize());
+    }
+
+    @Test
+    @DisplayName("Should reserve batch orders with one read and one write and reject what does not fit")
+    void shouldReserveBatchOrdersGreedily() {
+        // Given
+        OrderEntity first = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("40.00"), new BigDecimal("100.00"));
+        OrderEntity second = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("50.00"), new BigDecimal("100.00"));
+        OrderEntity third = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("30.00"), new BigDecimal("100.00"));
+        when(assetRepository.findByCustomerIdAndAssetName("CUST001", "TRY")).thenReturn(Optional.of(tryAsset));
+        when(assetRepository.reserveUsable(eq("CUST001"), eq("TRY"), any(BigDecimal.class))).thenReturn(1);
+
+        // When
+        Map<String, RuntimeException> rejections = assetService.reserveAssetsForOrders(
+                "CUST001", "AAPL", List.of(first, second, third));
+
+        // Then
+        assertEquals(Set.of(third.getOrderId()), rejections.keySet());
+        assertInstanceOf(InsufficientFundsException.class, rejections.get(third.getOrderId()));
+        verify(assetRepository, times(1)).findByCustomerIdAndAssetName("CUST001", "TRY");
+        verify(assetRepository, times(1)).reserveUsable(eq("CUST001"), eq("TRY"), amountOf("9000.00"));
+        verify(assetRepository, never()).findByCustomerIdAndAssetName("CUST001", "AAPL");
+    }
+
+    @Test
+    @DisplayName("Should reject batch sell orders for an asset the customer does not hold")
+    void shouldRejectBatchSellOrdersWithoutAsset() {
+        // Given
+        OrderEntity sell = new OrderEntity("CUST001", "MSFT", OrderSide.SELL, new BigDecimal("5.00"), new BigDecimal("400.00"));
+        when(assetRepository.findByCustomerIdAndAssetName("CUST001", "MSFT")).thenReturn(Optional.empty());
+
+        // When
+        Map<String, RuntimeException> rejections = assetService.reserveAssetsForOrders("CUST001", "MSFT", List.of(sell));
+
+        // Then
+        assertInstanceOf(AssetNotFoundException.class, rejections.get(sell.getOrderId()));
+        verify(assetRepository, never()).reserveUsable(anyString(), anyString(), any(BigDecimal.class));
+    }
+
+    @Test
+    @DisplayName("Should release canceled orders with one update per asset row")
+    void shouldReleaseCanceledOrdersInAggregate() {
+        // Given
+        OrderEntity firstBuy = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("10.00"), new BigDecimal("100.00"));
+        OrderEntity secondBuy = new OrderEntity("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("20.00"), new BigDecimal("100.00"));
+        secondBuy.fill(new BigDecimal("5.00"));
+        OrderEntity sell = new OrderEntity("CUST001", "AAPL", OrderSide.SELL, new BigDecimal("20.00"), new BigDecimal("200.00"));
+        when(assetRepository.releaseUsable(eq("CUST001"), anyString(), any(BigDecimal.class))).thenReturn(1);
+
+        // When
+        assetService.releaseAssetsForOrders("CUST001", "AAPL", List.of(firstBuy, secondBuy, sell));
+
+        // Then
+        verify(assetRepository, times(1)).releaseUsable(eq("CUST001"), eq("TRY"), amountOf("2500.00"));
+        verify(assetRepository, times(1)).releaseUsable(eq("CUST001"), eq("AAPL"), amountOf("20.00"));
+        verify(assetRepository, never()).save(any(AssetEntity.class));
+    }
+
+    @Test
+    @DisplayName("Should apply settled fills with one read and one write per asset row")
+    void shouldApplySettlementInOneBatch() {
+        // Given
+        tryAsset.reserve(new BigDecimal("1500.00"));
+        SettlementBatch settlement = new SettlementBatch();
+        settlement.addFill("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("4.00"),
+                new BigDecimal("150.00"), new BigDecimal("140.00"));
+        settlement.addFill("CUST001", "AAPL", OrderSide.BUY, new BigDecimal("6.00"),
+                new BigDecimal("150.00"), new BigDecimal("145.00"));
+        when(assetRepository.findAllById(any())).thenReturn(List.of(tryAsset));
+
+        // When
+        assetService.applySettlement(settlement);
+
+        // Then
+        // Paid 4 x 140 + 6 x 145 = 1430, the 70 price improvement is released
+        assertBigDecimalEquals(new BigDecimal("8570.00"), tryAsset.getSize());
+        assertBigDecimalEquals(new BigDecimal("8570.00"), tryAsset.getUsableSize());
+        verify(assetRepository, times(1)).findAllById(any());
+        verify(assetRepository, times(1)).saveAll(argThat(assets -> {
+            List<AssetEntity> saved = new ArrayList<>();
+            assets.forEach(saved::add);
+            return saved.size() == 2
+                    && saved.get(1).getAssetName().equals("AAPL")
+                    && saved.get(1).getSize().compareTo(new BigDecimal("10.00")) == 0;
+        }));
+        verify(assetRepository, never()).save(any(AssetEntity.class));
+    }
+
+    @Test
+    @DisplayName("Should read balances from the balance store when it is enabled")
+    void shouldReadBalancesFromStoreWhenEnabled() {
+        // Given
+        when(balanceStore.isEnabled()).thenReturn(true);
+        when(balanceStore.getAssets("CUST001")).thenReturn(List.of(tryAsset, stockAsset));
+
+        // When
+        List<AssetEntity> result = assetService.getCustomerAssets("CUST001");
+
+        // Then
+        assertEquals(List.of(tryAsset, stockAsset), result);
+        verifyNoInteractions(assetRepository);
+    }
+
+    @Test
+    @DisplayName("Should reserve in the balance store without touching the database when it is enabled")
+    void shouldReserveInStoreWhenEnabled() {
+        // Given
+        when(balanceStore.isEnabled()).thenReturn(true);
+        when(balanceStore.update(eq("CUST001"), eq("TRY"), eq(false), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<AssetEntity>>getArgument(3).accept(tryAsset);
+            return tryAsset;
+        });
+
+        // When
+        assetService.reserveAssetsForOrder("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+
+        // Then
+        assertBigDecimalEquals(new BigDecimal("8500.00"), tryAsset.getUsableSize());
+        verifyNoInteractions(assetRepository);
+    }
+
+    @Test
+    @DisplayName("Should refuse a reservation the stored balance does not cover")
+    void shouldRefuseReservationNotCoveredByStore() {
+        // Given
+        when(balanceStore.isEnabled()).thenReturn(true);
+        when(balanceStore.update(eq("CUST001"), eq("TRY"), eq(false), any())).thenAnswer(invocation -> {
+            invocation.<Consumer<AssetEntity>>getArgument(3).accept(tryAsset);
+            return tryAsset;
+        });
+        when(balanceStore.getAsset("CUST001", "TRY")).thenReturn(Optional.of(tryAsset));
+
+        // When & Then
+        assertThrows(InsufficientFundsException.class, () -> assetService.reserveAssetsForOrder(
+                "CUST001", "AAPL", OrderSide.BUY, new BigDecimal("100.00"), new BigDecimal("200.00")));
+        assertBigDecimalEquals(new BigDecimal("10000.00"), tryAsset.getUsableSize());
+        verifyNoInteractions(assetRepository);
+    }
+}
@@ -0,0 +1,90 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.CustomerEntity;
+import firm.brokerage.exception.InvalidCredentialsException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AuthServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-06T10:00:00Z");
+
+    private AuthService authService;
+    private CustomerEntity customer;
+
+    @BeforeEach
+    void setUp() {
+        authService = authServiceAt(NOW, "test-secret");
+        customer = new CustomerEntity("john", "encoded", "john@example.com", "John", "Doe");
+    }
+
+    @Test
+    @DisplayName("Should verify a token it issued")
+    void shouldVerifyIssuedToken() {
+        // Given
+        String token = authService.generateToken(customer);
+
+        // When
+        TokenClaims claims = authService.verifyToken(token);
+
+        // Then
+        assertEquals(customer.getCustomerId(), claims.getCustomerId());
+        assertEquals(List.of("CUSTOMER"), claims.getRoles());
+        assertEquals(NOW.plusSeconds(3600), claims.getExpiresAt());
+        assertEquals(customer.getCustomerId(), authService.validateToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject a token with a changed payload")
+    void shouldRejectTamperedToken() {
+        // Given
+        String token = authService.generateToken(customer);
+        String otherToken = authService.generateToken(
+                new CustomerEntity("jane", "encoded", "jane@example.com", "Jane", "Doe"));
+        String forged = otherToken.substring(0, otherToken.indexOf('.')) + token.substring(token.indexOf('.'));
+
+        // When & Then
+        assertThrows(InvalidCredentialsException.class, () -> authService.verifyToken(forged));
+        assertThrows(InvalidCredentialsException.class, () -> authService.verifyToken("not-a-token"));
+        assertThrows(InvalidCredentialsException.class, () -> authService.verifyToken("abc.%%%"));
+    }
+
+    @Test
+    @DisplayName("Should reject a token signed with another key")
+    void shouldRejectTokenSignedWithAnotherKey() {
+        // Given
+        String token = authServiceAt(NOW, "other-secret").generateToken(customer);
+
+        // When & Then
+        assertThrows(InvalidCredentialsException.class, () -> authService.verifyToken(token));
+    }
+
+    @Test
+    @DisplayName("Should reject an expired token")
+    void shouldRejectExpiredToken() {
+        // Given
+        String token = authService.generateToken(customer);
+        AuthService later = authServiceAt(NOW.plusSeconds(3600), "test-secret");
+
+        // When & Then
+        InvalidCredentialsException exception = assertThrows(InvalidCredentialsException.class,
+                () -> later.verifyToken(token));
+        assertEquals("Token expired", exception.getMessage());
+    }
+
+    private static AuthService authServiceAt(Instant now, String secret) {
+        return new AuthService(mock(CustomerService.class), mock(PasswordEncoder.class), secret,
+                Duration.ofHours(1), Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,185 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.exception.AssetNotFoundException;
+import firm.brokerage.repository.AssetRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class BalanceStoreTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private AssetRepository assetRepository;
+    private BalanceStore balanceStore;
+
+    @BeforeEach
+    void setUp() {
+        assetRepository = mock(AssetRepository.class);
+        balanceStore = new BalanceStore(assetRepository, true, true, 2, 1000, now::get);
+
+        AssetEntity tryAsset = new AssetEntity("CUST001", "TRY", new BigDecimal("10000.00"));
+        tryAsset.setVersion(3L);
+        when(assetRepository.findByCustomerId("CUST001")).thenReturn(List.of(tryAsset));
+    }
+
+    @Test
+    @DisplayName("Should load a customer once and serve later reads from memory")
+    void shouldLoadCustomerOnce() {
+        // When
+        balanceStore.getAssets("CUST001");
+        balanceStore.getAsset("CUST001", "TRY");
+        balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("100.00")));
+
+        // Then
+        verify(assetRepository, times(1)).findByCustomerId("CUST001");
+        assertEquals(0, new BigDecimal("9900.00").compareTo(balanceStore.getAsset("CUST001", "TRY").get().getUsableSize()));
+    }
+
+    @Test
+    @DisplayName("Should write the rows a transaction changed as one upsert before it commits")
+    void shouldWriteChangedRowsBeforeCommit() {
+        // When
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("100.00")));
+            balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("200.00")));
+            balanceStore.update("CUST001", "AAPL", true, asset -> asset.increase(new BigDecimal("5.00")));
+            verify(assetRepository, never()).upsertAll(anyList());
+        });
+
+        // Then
+        verify(assetRepository, times(1)).upsertAll(argThat(rows -> rows.size() == 2
+                && rows.stream().anyMatch(row -> row.getAssetName().equals("TRY")
+                        && row.getUsableSize().compareTo(new BigDecimal("9700.00")) == 0
+                        && row.getVersion() == 4L)
+                && rows.stream().anyMatch(row -> row.getAssetName().equals("AAPL") && row.getVersion() == 0L)));
+    }
+
+    @Test
+    @DisplayName("Should write a change at once outside a transaction")
+    void shouldWriteAtOnceWithoutTransaction() {
+        // When
+        balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("100.00")));
+
+        // Then
+        verify(assetRepository).upsertAll(argThat(rows -> rows.size() == 1 && rows.get(0).getVersion() == 4L));
+    }
+
+    @Test
+    @DisplayName("Should undo the changes of a transaction that rolls back without writing them")
+    void shouldUndoChangesOnRollback() {
+        // Given
+        balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("100.00")));
+
+        // When
+        inTransaction(TransactionSynchronization.STATUS_ROLLED_BACK, () -> {
+            balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("500.00")));
+            balanceStore.update("CUST001", "TRY", false, asset -> asset.consumeReserved(new BigDecimal("600.00")));
+        });
+
+        // Then
+        AssetEntity tryAsset = balanceStore.getAsset("CUST001", "TRY").get();
+        assertEquals(0, new BigDecimal("10000.00").compareTo(tryAsset.getSize()));
+        assertEquals(0, new BigDecimal("9900.00").compareTo(tryAsset.getUsableSize()));
+        verify(assetRepository, times(1)).upsertAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should leave the balance unchanged when a change fails")
+    void shouldLeaveBalanceUnchangedWhenChangeFails() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> balanceStore.update("CUST001", "TRY", false,
+                asset -> asset.reserve(new BigDecimal("20000.00"))));
+        assertThrows(AssetNotFoundException.class, () -> balanceStore.update("CUST001", "AAPL", false,
+                asset -> asset.release(BigDecimal.ONE)));
+        assertEquals(0, new BigDecimal("10000.00").compareTo(balanceStore.getAsset("CUST001", "TRY").get().getUsableSize()));
+        verify(assetRepository, never()).upsertAll(any());
+    }
+
+    @Test
+    @DisplayName("Should evict idle customers and reload them on next use")
+    void shouldEvictIdleCustomers() {
+        // Given
+        balanceStore.getAssets("CUST001");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        // When
+        balanceStore.evictIdle();
+        balanceStore.getAssets("CUST001");
+
+        // Then
+        verify(assetRepository, times(2)).findByCustomerId("CUST001");
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used customers beyond the maximum")
+    void shouldEvictBeyondMaximum() {
+        // Given
+        balanceStore.getAssets("CUST001");
+        now.incrementAndGet();
+        balanceStore.getAssets("CUST002");
+        now.incrementAndGet();
+        balanceStore.getAssets("CUST003");
+
+        // When
+        balanceStore.evictIdle();
+        balanceStore.getAssets("CUST002");
+        balanceStore.getAssets("CUST001");
+
+        // Then
+        verify(assetRepository, times(1)).findByCustomerId("CUST002");
+        verify(assetRepository, times(2)).findByCustomerId("CUST001");
+    }
+
+    @Test
+    @DisplayName("Should keep a customer with changes of an open transaction")
+    void shouldNotEvictCustomerWithOpenTransaction() {
+        // When
+        inTransaction(TransactionSynchronization.STATUS_COMMITTED, () -> {
+            balanceStore.update("CUST001", "TRY", false, asset -> asset.reserve(new BigDecimal("100.00")));
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+            balanceStore.evictIdle();
+        });
+
+        // Then
+        verify(assetRepository, times(1)).findByCustomerId("CUST001");
+        verify(assetRepository).upsertAll(argThat(rows -> rows.size() == 1
+                && rows.get(0).getUsableSize().compareTo(new BigDecimal("9900.00")) == 0));
+    }
+
+    @Test
+    @DisplayName("Should refuse to start without striped customer locks")
+    void shouldRefuseToStartWithoutStripedLocks() {
+        // When & Then
+        assertThrows(IllegalStateException.class,
+                () -> new BalanceStore(assetRepository, true, false, 2, 1000, now::get));
+    }
+
+    // Simulates a transaction that commits or ends with the given status
+    private static void inTransaction(int status, Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            }
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.CustomerEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private CustomerCache customerCache;
+    private CustomerEntity john;
+
+    @BeforeEach
+    void setUp() {
+        customerCache = new CustomerCache(2, 1000, now::get);
+        john = new CustomerEntity("john", "encoded", "john@example.com", "John", "Doe");
+    }
+
+    @Test
+    @DisplayName("Should find a cached customer by username and by customer ID")
+    void shouldFindByBothKeys() {
+        // When
+        customerCache.put(john);
+
+        // Then
+        assertEquals(john, customerCache.getByUsername("john").orElseThrow());
+        assertEquals(john, customerCache.getById(john.getCustomerId()).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should hand out copies that cannot change the cached customer")
+    void shouldHandOutCopies() {
+        // Given
+        customerCache.put(john);
+
+        // When
+        john.setActive(false);
+        customerCache.getByUsername("john").orElseThrow().setEmail("changed@example.com");
+
+        // Then
+        CustomerEntity cached = customerCache.getByUsername("john").orElseThrow();
+        assertTrue(cached.isActive());
+        assertEquals("john@example.com", cached.getEmail());
+    }
+
+    @Test
+    @DisplayName("Should replace the cached customer on a new last login, keeping its TTL")
+    void shouldReplaceOnLastLogin() {
+        // Given
+        LocalDateTime login = LocalDateTime.of(2025, 1, 6, 10, 0);
+        customerCache.put(john);
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        // When
+        customerCache.updateLastLogin(john.getCustomerId(), login);
+
+        // Then
+        assertEquals(login, customerCache.getById(john.getCustomerId()).orElseThrow().getLastLoginDate());
+        assertNull(john.getLastLoginDate());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(customerCache.getById(john.getCustomerId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should expire customers after the TTL")
+    void shouldExpireAfterTtl() {
+        // Given
+        customerCache.put(john);
+
+        // When
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        // Then
+        assertTrue(customerCache.getByUsername("john").isEmpty());
+        assertTrue(customerCache.getById(john.getCustomerId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should drop the least recently used customer beyond the maximum size")
+    void shouldDropLeastRecentlyUsed() {
+        // Given
+        CustomerEntity jane = new CustomerEntity("jane", "encoded", "jane@example.com", "Jane", "Doe");
+        CustomerEntity mary = new CustomerEntity("mary", "encoded", "mary@example.com", "Mary", "Major");
+        customerCache.put(john);
+        customerCache.put(jane);
+        customerCache.getByUsername("john");
+
+        // When
+        customerCache.put(mary);
+
+        // Then
+        assertTrue(customerCache.getByUsername("john").isPresent());
+        assertTrue(customerCache.getByUsername("jane").isEmpty());
+        assertTrue(customerCache.getByUsername("mary").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should evict a customer under both keys")
+    void shouldEvictUnderBothKeys() {
+        // Given
+        customerCache.put(john);
+
+        // When
+        customerCache.evict(null, "john");
+
+        // Then
+        assertTrue(customerCache.getById(john.getCustomerId()).isEmpty());
+        assertTrue(customerCache.getByUsername("john").isEmpty());
+    }
+}
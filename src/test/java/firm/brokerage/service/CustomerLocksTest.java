@@ -0,0 +1,163 @@
+package firm.brokerage.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerLocksTest {
+
+    private CustomerLocks customerLocks;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        customerLocks = new CustomerLocks(true, 16, 200);
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should hold a customer lock until the transaction completes")
+    void shouldHoldLockUntilTransactionCompletes() throws Exception {
+        // Given
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> inTransaction(() -> {
+            customerLocks.lock("CUST001");
+            locked.countDown();
+            await(commit);
+        }), executor);
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // When & Then
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock("CUST001")), executor);
+        Exception exception = assertThrows(Exception.class, waiting::join);
+        assertInstanceOf(CannotAcquireLockException.class, exception.getCause());
+
+        commit.countDown();
+        holder.join();
+        CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock("CUST001")), executor).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should let different customers lock in parallel")
+    void shouldLockDifferentCustomersInParallel() throws Exception {
+        // Given
+        CustomerLocks locks = new CustomerLocks(true, 1024, 200);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> inTransaction(() -> {
+            locks.lock("CUST001");
+            locked.countDown();
+            await(commit);
+        }), executor);
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // When
+        AtomicBoolean acquired = new AtomicBoolean();
+        CompletableFuture.runAsync(() -> inTransaction(() -> {
+            locks.lock("CUST002");
+            acquired.set(true);
+        }), executor).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertTrue(acquired.get());
+        commit.countDown();
+        holder.join();
+    }
+
+    @Test
+    @DisplayName("Should fail fast with a retryable error when a busy stripe is taken out of order")
+    void shouldFailFastWhenLockingOutOfOrder() throws Exception {
+        // Given - CUST001 is on stripe 14 and CUST002 on stripe 15
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> inTransaction(() -> {
+            customerLocks.lock("CUST001");
+            locked.countDown();
+            await(commit);
+        }), executor);
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // When & Then
+        CompletableFuture<Void> outOfOrder = CompletableFuture.runAsync(() -> inTransaction(() -> {
+            customerLocks.lock("CUST002");
+            customerLocks.lockAll(List.of("CUST002", "CUST001"));
+        }), executor);
+        Exception exception = assertThrows(Exception.class, outOfOrder::join);
+        assertInstanceOf(CannotAcquireLockException.class, exception.getCause());
+
+        // The stripe it did take was released when its transaction ended
+        CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock("CUST002")), executor).get(5, TimeUnit.SECONDS);
+        commit.countDown();
+        holder.join();
+    }
+
+    @Test
+    @DisplayName("Should allow the same transaction to lock a customer again")
+    void shouldBeReentrantWithinTransaction() {
+        // When & Then
+        assertDoesNotThrow(() -> inTransaction(() -> {
+            customerLocks.lock("CUST001");
+            customerLocks.lockAll(List.of("CUST002", "CUST001"));
+            customerLocks.lock("CUST001");
+        }));
+        assertDoesNotThrow(() -> CompletableFuture.runAsync(() -> inTransaction(() -> customerLocks.lock("CUST001")), executor).join());
+    }
+
+    @Test
+    @DisplayName("Should refuse to lock outside a transaction")
+    void shouldRefuseToLockOutsideTransaction() {
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> customerLocks.lock("CUST001"));
+    }
+
+    @Test
+    @DisplayName("Should not lock when striping is disabled")
+    void shouldNotLockWhenDisabled() {
+        // Given
+        CustomerLocks disabled = new CustomerLocks(false, 16, 200);
+
+        // When & Then
+        assertDoesNotThrow(() -> disabled.lock("CUST001"));
+    }
+
+    // Simulates a transaction: synchronizations run their completion callbacks at the end
+    private static void inTransaction(Runnable body) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            body.run();
+        } finally {
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
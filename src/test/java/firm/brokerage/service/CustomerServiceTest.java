@@ -0,0 +1,68 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.CustomerEntity;
+import firm.brokerage.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private LastLoginRecorder lastLoginRecorder;
+
+    private CustomerService customerService;
+    private CustomerEntity customer;
+
+    @BeforeEach
+    void setUp() {
+        customerService = new CustomerService(customerRepository, passwordEncoder, new CustomerCache(100, 60000),
+                lastLoginRecorder);
+        customer = new CustomerEntity("john", "encoded", "john@example.com", "John", "Doe");
+    }
+
+    @Test
+    @DisplayName("Should read a customer through the cache")
+    void shouldReadCustomerThroughCache() {
+        // Given
+        when(customerRepository.findByUsername("john")).thenReturn(Optional.of(customer));
+
+        // When
+        CustomerEntity first = customerService.findByUsername("john");
+        CustomerEntity second = customerService.findByUsername("john");
+
+        // Then
+        assertEquals(customer, first);
+        assertEquals(customer, second);
+        verify(customerRepository, times(1)).findByUsername("john");
+    }
+
+    @Test
+    @DisplayName("Should hand the last login to the recorder without touching the database")
+    void shouldRecordLastLoginInBackground() {
+        // When
+        customerService.updateLastLogin(customer.getCustomerId());
+
+        // Then
+        verify(lastLoginRecorder).record(eq(customer.getCustomerId()), any());
+        verifyNoInteractions(customerRepository);
+    }
+}
@@ -0,0 +1,86 @@
+package firm.brokerage.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.repository.AssetRepository;
+import firm.brokerage.repository.OrderRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(orderRepository, assetRepository, entityManager,
+                new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    @DisplayName("Should write one JSON line per order and detach each order once written")
+    void shouldExportOrdersAsNdjson() {
+        // Given
+        OrderEntity buy = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        OrderEntity sell = new OrderEntity("CUST001", "AAPL", OrderSide.SELL,
+                new BigDecimal("5.00"), new BigDecimal("155.00"));
+        when(orderRepository.streamByCustomerIdOrderByCreateDateAsc("CUST001")).thenReturn(Stream.of(buy, sell));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = exportService.exportOrders("CUST001", out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, count);
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"orderId\":\"" + buy.getOrderId() + "\""));
+        assertTrue(lines[1].contains("\"orderSide\":\"SELL\""));
+        verify(entityManager).detach(buy);
+        verify(entityManager).detach(sell);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON line per asset")
+    void shouldExportAssetsAsNdjson() {
+        // Given
+        AssetEntity tryAsset = new AssetEntity("CUST001", "TRY", new BigDecimal("10000.00"));
+        when(assetRepository.streamAll()).thenReturn(Stream.of(tryAsset));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long count = exportService.exportAssets(null, out);
+
+        // Then
+        assertEquals(1, count);
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("\"assetName\":\"TRY\""));
+        verify(entityManager).detach(tryAsset);
+    }
+}
@@ -0,0 +1,62 @@
+package firm.brokerage.service;
+
+import firm.brokerage.repository.CustomerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class LastLoginRecorderTest {
+
+    private static final LocalDateTime MARKET_OPEN = LocalDateTime.of(2025, 1, 6, 10, 0);
+
+    private CustomerRepository customerRepository;
+    private LastLoginRecorder lastLoginRecorder;
+
+    @BeforeEach
+    void setUp() {
+        customerRepository = mock(CustomerRepository.class);
+        lastLoginRecorder = new LastLoginRecorder(customerRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    @DisplayName("Should collapse repeated logins into one update per customer")
+    void shouldCoalesceRepeatedLogins() {
+        // Given
+        lastLoginRecorder.record("CUST001", MARKET_OPEN);
+        lastLoginRecorder.record("CUST001", MARKET_OPEN.plusSeconds(5));
+        lastLoginRecorder.record("CUST001", MARKET_OPEN.plusSeconds(2));
+        lastLoginRecorder.record("CUST002", MARKET_OPEN);
+
+        // When
+        lastLoginRecorder.flush();
+        lastLoginRecorder.flush();
+
+        // Then
+        verify(customerRepository, times(1)).updateLastLoginDates(
+                Map.of("CUST001", MARKET_OPEN.plusSeconds(5), "CUST002", MARKET_OPEN));
+    }
+
+    @Test
+    @DisplayName("Should keep login times when a flush fails")
+    void shouldKeepLoginsWhenFlushFails() {
+        // Given
+        lastLoginRecorder.record("CUST001", MARKET_OPEN);
+        doThrow(new IllegalStateException("Database down")).doNothing()
+                .when(customerRepository).updateLastLoginDates(anyMap());
+
+        // When
+        assertThrows(IllegalStateException.class, lastLoginRecorder::flush);
+        lastLoginRecorder.flush();
+
+        // Then
+        verify(customerRepository, times(2)).updateLastLoginDates(Map.of("CUST001", MARKET_OPEN));
+    }
+}
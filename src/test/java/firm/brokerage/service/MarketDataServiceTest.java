@@ -0,0 +1,153 @@
+package firm.brokerage.service;
+
+import firm.brokerage.dto.DepthLevel;
+import firm.brokerage.dto.MarketDataEvent;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.matching.BookOrder;
+import firm.brokerage.matching.OrderBook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataServiceTest {
+
+    private static final String EPOCH = "e1";
+
+    private MarketDataService marketDataService;
+    private OrderBook book;
+
+    @BeforeEach
+    void setUp() {
+        // Deliver inline on the test thread
+        marketDataService = new MarketDataService(2, 2, 60000, Runnable::run, EPOCH);
+        book = new OrderBook("AAPL");
+    }
+
+    @Test
+    @DisplayName("Should start a new subscriber from a snapshot of the published depth")
+    void shouldStartFromSnapshot() {
+        // Given
+        book.add(order("B1", OrderSide.BUY, 1000, 15000));
+        book.add(order("S1", OrderSide.SELL, 500, 15500));
+        marketDataService.publish(book);
+        List<MarketDataEvent> events = new ArrayList<>();
+
+        // When
+        marketDataService.subscribe("AAPL", null, null, events::add);
+
+        // Then
+        assertEquals(1, events.size());
+        MarketDataEvent snapshot = events.get(0);
+        assertEquals(MarketDataEvent.Type.SNAPSHOT, snapshot.getType());
+        assertEquals(EPOCH, snapshot.getEpoch());
+        assertEquals(1, snapshot.getSequence());
+        assertEquals(0, new BigDecimal("150.00").compareTo(snapshot.getBestBid()));
+        assertEquals(0, new BigDecimal("155.00").compareTo(snapshot.getBestAsk()));
+        assertEquals(0, new BigDecimal("10.00").compareTo(snapshot.getBids().get(0).getSize()));
+    }
+
+    @Test
+    @DisplayName("Should send only the levels that changed and remove emptied ones with size zero")
+    void shouldPublishOnlyChangedLevels() {
+        // Given
+        book.add(order("B1", OrderSide.BUY, 1000, 15000));
+        book.add(order("B2", OrderSide.BUY, 300, 14900));
+        marketDataService.publish(book);
+        List<MarketDataEvent> events = new ArrayList<>();
+        marketDataService.subscribe("AAPL", null, null, events::add);
+
+        // When
+        book.remove("B1");
+        book.add(order("S1", OrderSide.SELL, 200, 15500));
+        marketDataService.publish(book);
+        marketDataService.publish(book);
+
+        // Then - the unchanged republish sends nothing
+        assertEquals(2, events.size());
+        MarketDataEvent delta = events.get(1);
+        assertEquals(MarketDataEvent.Type.DELTA, delta.getType());
+        assertEquals(2, delta.getSequence());
+        assertEquals(0, new BigDecimal("149.00").compareTo(delta.getBestBid()));
+        assertEquals(1, delta.getBids().size());
+        DepthLevel removed = delta.getBids().get(0);
+        assertEquals(0, new BigDecimal("150.00").compareTo(removed.getPrice()));
+        assertEquals(0, removed.getSize().signum());
+        assertEquals(1, delta.getAsks().size());
+    }
+
+    @Test
+    @DisplayName("Should replay retained deltas after the given sequence and fall back to a snapshot beyond them")
+    void shouldResumeFromSequence() {
+        // Given - three deltas, of which the last two are retained
+        for (int i = 1; i <= 3; i++) {
+            book.add(order("B" + i, OrderSide.BUY, 100, 15000 + i));
+            marketDataService.publish(book);
+        }
+        List<MarketDataEvent> resumed = new ArrayList<>();
+        List<MarketDataEvent> tooOld = new ArrayList<>();
+
+        // When
+        marketDataService.subscribe("AAPL", EPOCH, 1L, resumed::add);
+        marketDataService.subscribe("AAPL", EPOCH, 0L, tooOld::add);
+
+        // Then
+        assertEquals(List.of(2L, 3L), resumed.stream().map(MarketDataEvent::getSequence).toList());
+        assertTrue(resumed.stream().allMatch(event -> event.getType() == MarketDataEvent.Type.DELTA));
+        assertEquals(1, tooOld.size());
+        assertEquals(MarketDataEvent.Type.SNAPSHOT, tooOld.get(0).getType());
+        assertEquals(3, tooOld.get(0).getSequence());
+        // Depth is limited to the two best levels
+        assertEquals(2, tooOld.get(0).getBids().size());
+    }
+
+    @Test
+    @DisplayName("Should start from a snapshot when resuming a sequence of another epoch")
+    void shouldNotResumeOtherEpoch() {
+        // Given - a previous run had reached sequence 1
+        book.add(order("B1", OrderSide.BUY, 100, 15000));
+        marketDataService.publish(book);
+        book.add(order("B2", OrderSide.BUY, 100, 15001));
+        marketDataService.publish(book);
+        List<MarketDataEvent> events = new ArrayList<>();
+
+        // When
+        marketDataService.subscribe("AAPL", "previous", 1L, events::add);
+
+        // Then
+        assertEquals(1, events.size());
+        assertEquals(MarketDataEvent.Type.SNAPSHOT, events.get(0).getType());
+        assertEquals(2, events.get(0).getSequence());
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber that fails or unsubscribes")
+    void shouldDropFailedAndCanceledSubscribers() {
+        // Given
+        List<MarketDataEvent> events = new ArrayList<>();
+        Runnable unsubscribe = marketDataService.subscribe("AAPL", null, null, events::add);
+        int[] failures = {0};
+        marketDataService.subscribe("AAPL", null, null, event -> {
+            failures[0]++;
+            throw new IllegalStateException("Client gone");
+        });
+
+        // When
+        unsubscribe.run();
+        book.add(order("B1", OrderSide.BUY, 100, 15000));
+        marketDataService.publish(book);
+
+        // Then - only the two snapshots were delivered
+        assertEquals(1, events.size());
+        assertEquals(1, failures[0]);
+    }
+
+    private static BookOrder order(String orderId, OrderSide side, long size, long price) {
+        return new BookOrder(orderId, "CUST001", side, price, size);
+    }
+}
@@ -1,10 +1,16 @@
 package firm.brokerage.service;
 
+import firm.brokerage.config.MatchingProperties;
 import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.OrderSide;
 import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.exception.AssetNotFoundException;
 import firm.brokerage.exception.InvalidOrderStatusException;
 import firm.brokerage.exception.OrderNotFoundException;
+import firm.brokerage.journal.JournalCommandType;
+import firm.brokerage.journal.JournalEntry;
+import firm.brokerage.matching.OrderSequencer;
+import firm.brokerage.matching.SweepResult;
 import firm.brokerage.repository.OrderRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -12,13 +18,19 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +42,27 @@ class MatchingServiceTest {
     @Mock
     private AssetService assetService;
 
+    @Mock
+    private OrderSequencer orderSequencer;
+
+    @Mock
+    private JournalService journalService;
+
+    @Mock
+    private TradeService tradeService;
+
+    @Mock
+    private MarketDataService marketDataService;
+
+    @Mock
+    private OrderEventService orderEventService;
+
+    @Mock
+    private CustomerLocks customerLocks;
+
+    @Spy
+    private MatchingProperties matchingProperties = new MatchingProperties();
+
     @InjectMocks
     private MatchingService matchingService;
 
@@ -37,12 +70,28 @@ class MatchingServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Run sequenced commands inline on the test thread
+        lenient().when(orderSequencer.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         pendingOrder = new OrderEntity(
                 "CUST001", "AAPL", OrderSide.BUY,
                 new BigDecimal("10.00"), new BigDecimal("150.00")
         );
     }
 
+    @Test
+    @DisplayName("Should reject market data of an asset that was never ordered without loading a book")
+    void shouldRejectMarketDataOfUnknownAsset() {
+        // Given
+        when(orderRepository.existsByAssetName("NOPE")).thenReturn(false);
+
+        // When & Then
+        assertThrows(AssetNotFoundException.class, () -> matchingService.openMarketData("NOPE"));
+        verify(orderSequencer, never()).execute(anyString(), any());
+        verify(orderRepository, never()).findByAssetNameAndStatusInOrderByCreateDateAsc(anyString(), any());
+    }
+
     @Test
     @DisplayName("Should match pending order successfully")
     void shouldMatchPendingOrderSuccessfully() {
@@ -69,6 +118,8 @@ class MatchingServiceTest {
                 pendingOrder.getPrice()
         );
         verify(orderRepository).save(pendingOrder);
+        verify(orderEventService).publish(pendingOrder);
+        verify(journalService).record(any(JournalEntry.class));
     }
 
     @Test
@@ -106,4 +157,173 @@ class MatchingServiceTest {
         assertTrue(exception.getMessage().contains(orderId));
         assertTrue(exception.getMessage().contains("match"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should match incoming order against crossing resting order")
+    void shouldMatchIncomingOrderAgainstCrossingRestingOrder() {
+        // Given
+        OrderEntity restingSell = new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL,
+                new BigDecimal("10.00"), new BigDecimal("145.00")
+        );
+        when(orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(restingSell));
+        when(orderRepository.findById(restingSell.getOrderId())).thenReturn(Optional.of(restingSell));
+
+        // When
+        matchingService.submitOrder(pendingOrder);
+
+        // Then - both sides settle at the resting price
+        assertEquals(OrderStatus.FILLED, pendingOrder.getStatus());
+        assertEquals(OrderStatus.FILLED, restingSell.getStatus());
+        verify(assetService).processMatchedOrder(
+                eq("CUST001"), eq("AAPL"), eq(OrderSide.BUY),
+                eq(new BigDecimal("10.00")), eq(new BigDecimal("150.00")), eq(new BigDecimal("145.00"))
+        );
+        verify(assetService).processMatchedOrder(
+                eq("CUST002"), eq("AAPL"), eq(OrderSide.SELL),
+                eq(new BigDecimal("10.00")), eq(new BigDecimal("145.00")), eq(new BigDecimal("145.00"))
+        );
+        verify(orderRepository).save(restingSell);
+        verify(orderEventService).publish(restingSell);
+        verify(customerLocks).lockAll(argThat(customerIds ->
+                customerIds.size() == 2 && customerIds.containsAll(List.of("CUST001", "CUST002"))));
+        verify(tradeService).recordTrades(argThat(trades -> trades.size() == 1
+                && trades.get(0).getBuyOrderId().equals(pendingOrder.getOrderId())
+                && trades.get(0).getSellOrderId().equals(restingSell.getOrderId())
+                && trades.get(0).getPrice().compareTo(new BigDecimal("145.00")) == 0
+                && trades.get(0).getSize().compareTo(new BigDecimal("10.00")) == 0));
+    }
+
+    @Test
+    @DisplayName("Should cancel and release an incoming order that would trade with its own customer")
+    void shouldCancelIncomingOrderToPreventSelfTrade() {
+        // Given
+        OrderEntity ownSell = new OrderEntity(
+                "CUST001", "AAPL", OrderSide.SELL,
+                new BigDecimal("10.00"), new BigDecimal("145.00")
+        );
+        when(orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(ownSell));
+
+        // When
+        matchingService.submitOrder(pendingOrder);
+
+        // Then
+        assertEquals(OrderStatus.CANCELED, pendingOrder.getStatus());
+        assertEquals(OrderStatus.PENDING, ownSell.getStatus());
+        verify(assetService).releaseAssetsForOrder("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+        verify(tradeService).recordTrades(List.of());
+        assertFalse(matchingService.withdrawOrder(pendingOrder));
+        assertTrue(matchingService.withdrawOrder(ownSell));
+    }
+
+    @Test
+    @DisplayName("Should partially fill incoming order and rest the remainder")
+    void shouldPartiallyFillIncomingOrderAndRestTheRemainder() {
+        // Given
+        OrderEntity restingSell = new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL,
+                new BigDecimal("4.00"), new BigDecimal("150.00")
+        );
+        when(orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(restingSell));
+        when(orderRepository.findById(restingSell.getOrderId())).thenReturn(Optional.of(restingSell));
+
+        // When
+        matchingService.submitOrder(pendingOrder);
+
+        // Then
+        assertEquals(OrderStatus.PARTIALLY_FILLED, pendingOrder.getStatus());
+        assertEquals(0, new BigDecimal("6.00").compareTo(pendingOrder.getRemainingSize()));
+        assertEquals(OrderStatus.FILLED, restingSell.getStatus());
+        verify(assetService).processMatchedOrder(
+                eq("CUST001"), eq("AAPL"), eq(OrderSide.BUY),
+                eq(new BigDecimal("4.00")), eq(new BigDecimal("150.00")), eq(new BigDecimal("150.00"))
+        );
+        assertTrue(matchingService.withdrawOrder(pendingOrder));
+    }
+
+    @Test
+    @DisplayName("Should leave order resting when nothing crosses")
+    void shouldLeaveOrderRestingWhenNothingCrosses() {
+        // Given
+        OrderEntity restingSell = new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL,
+                new BigDecimal("10.00"), new BigDecimal("155.00")
+        );
+        when(orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(restingSell));
+
+        // When
+        matchingService.submitOrder(pendingOrder);
+
+        // Then
+        assertEquals(OrderStatus.PENDING, pendingOrder.getStatus());
+        assertTrue(matchingService.withdrawOrder(pendingOrder));
+        verifyNoInteractions(assetService, customerLocks);
+        verify(tradeService).recordTrades(List.of());
+        verify(marketDataService, atLeastOnce()).publish(argThat(book -> book.getAssetName().equals("AAPL")));
+    }
+
+    @Test
+    @DisplayName("Should cross resting orders in one sweep and settle them in one batch")
+    void shouldSweepCrossedOrders() {
+        // Given
+        OrderEntity sellOrder = new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL,
+                new BigDecimal("4.00"), new BigDecimal("140.00")
+        );
+        OrderEntity secondSellOrder = new OrderEntity(
+                "CUST003", "AAPL", OrderSide.SELL,
+                new BigDecimal("6.00"), new BigDecimal("145.00")
+        );
+        when(orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(pendingOrder, sellOrder, secondSellOrder));
+
+        // When
+        SweepResult result = matchingService.sweep("AAPL");
+
+        // Then
+        assertEquals(2, result.getTradeCount());
+        assertEquals(3, result.getFilledOrders().size());
+        assertEquals(OrderStatus.FILLED, pendingOrder.getStatus());
+        assertEquals(OrderStatus.FILLED, sellOrder.getStatus());
+        assertEquals(OrderStatus.FILLED, secondSellOrder.getStatus());
+        verify(assetService, times(1)).applySettlement(argThat(settlement -> settlement.getChanges().size() == 6));
+        verify(assetService, never()).processMatchedOrder(
+                any(String.class), any(String.class), any(OrderSide.class),
+                any(BigDecimal.class), any(BigDecimal.class), any(BigDecimal.class)
+        );
+        verify(orderRepository, times(1)).saveAll(any());
+        verify(orderRepository, never()).save(any(OrderEntity.class));
+        verify(orderEventService, times(3)).publish(any(OrderEntity.class));
+        verify(tradeService, times(1)).recordTrades(argThat(trades -> trades.size() == 2
+                && trades.stream().allMatch(trade -> trade.getBuyOrderId().equals(pendingOrder.getOrderId()))
+                && trades.get(0).getSellOrderId().equals(sellOrder.getOrderId())
+                && trades.get(0).getTradeId() < trades.get(1).getTradeId()));
+        verify(journalService).record(argThat(entry -> entry.getType() == JournalCommandType.SWEEP));
+    }
+
+    @Test
+    @DisplayName("Should leave uncrossed orders untouched when sweeping")
+    void shouldNotTradeUncrossedOrdersWhenSweeping() {
+        // Given
+        OrderEntity sellOrder = new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL,
+                new BigDecimal("4.00"), new BigDecimal("160.00")
+        );
+        when(orderRepository.findByAssetNameAndStatusInOrderByCreateDateAsc("AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(pendingOrder, sellOrder));
+
+        // When
+        SweepResult result = matchingService.sweep("AAPL");
+
+        // Then
+        assertEquals(0, result.getTradeCount());
+        assertTrue(result.getFilledOrders().isEmpty());
+        assertEquals(OrderStatus.PENDING, pendingOrder.getStatus());
+        verify(assetService).applySettlement(argThat(SettlementBatch::isEmpty));
+    }
+}
@@ -0,0 +1,150 @@
+package firm.brokerage.service;
+
+import firm.brokerage.dto.OrderEvent;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderEventServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    // Dispatcher tasks, run by the test to play a slow or fast consumer
+    private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+    private OrderEventService orderEventService;
+    private OrderEntity openOrder;
+
+    @BeforeEach
+    void setUp() {
+        orderEventService = new OrderEventService(orderRepository, 2, 60000, tasks::add);
+        openOrder = new OrderEntity(
+                "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00")
+        );
+    }
+
+    @Test
+    @DisplayName("Should start a subscriber from a snapshot of the open orders and then send updates")
+    void shouldStartFromSnapshotThenSendUpdates() {
+        // Given
+        when(orderRepository.findByCustomerIdAndStatusInOrderByCreateDateAsc("CUST001", OrderStatus.OPEN))
+                .thenReturn(List.of(openOrder));
+        List<OrderEvent> events = new ArrayList<>();
+        orderEventService.subscribe("CUST001", events::add);
+        runTasks();
+
+        // When
+        openOrder.cancel();
+        orderEventService.publish(openOrder);
+        runTasks();
+
+        // Then
+        assertEquals(2, events.size());
+        assertEquals(OrderEvent.Type.SNAPSHOT, events.get(0).getType());
+        assertEquals(openOrder.getOrderId(), events.get(0).getOrders().get(0).getOrderId());
+        assertEquals(OrderEvent.Type.UPDATE, events.get(1).getType());
+        assertEquals(OrderStatus.CANCELED, events.get(1).getOrders().get(0).getStatus());
+    }
+
+    @Test
+    @DisplayName("Should replace the buffered updates of a slow subscriber with one snapshot")
+    void shouldDropToSnapshotWhenBufferOverflows() {
+        // Given
+        when(orderRepository.findByCustomerIdAndStatusInOrderByCreateDateAsc("CUST001", OrderStatus.OPEN))
+                .thenReturn(List.of());
+        List<OrderEvent> events = new ArrayList<>();
+        orderEventService.subscribe("CUST001", events::add);
+        runTasks();
+
+        // When - three updates arrive before the subscriber drains a buffer of two
+        for (int i = 0; i < 3; i++) {
+            orderEventService.publish(new OrderEntity(
+                    "CUST001", "AAPL", OrderSide.BUY, BigDecimal.ONE, new BigDecimal("150.00")));
+        }
+        runTasks();
+
+        // Then
+        assertEquals(2, events.size());
+        assertEquals(OrderEvent.Type.SNAPSHOT, events.get(1).getType());
+        verify(orderRepository, times(2)).findByCustomerIdAndStatusInOrderByCreateDateAsc("CUST001", OrderStatus.OPEN);
+    }
+
+    @Test
+    @DisplayName("Should send an order changed several times in one transaction once, after commit")
+    void shouldPublishFinalStateOnceAfterCommit() {
+        // Given
+        when(orderRepository.findByCustomerIdAndStatusInOrderByCreateDateAsc("CUST001", OrderStatus.OPEN))
+                .thenReturn(List.of());
+        List<OrderEvent> events = new ArrayList<>();
+        orderEventService.subscribe("CUST001", events::add);
+        runTasks();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When
+            orderEventService.publish(openOrder);
+            openOrder.cancel();
+            orderEventService.publish(openOrder);
+            assertTrue(tasks.isEmpty());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        runTasks();
+
+        // Then
+        assertEquals(2, events.size());
+        assertEquals(1, events.get(1).getOrders().size());
+        assertEquals(OrderStatus.CANCELED, events.get(1).getOrders().get(0).getStatus());
+        assertFalse(TransactionSynchronizationManager.hasResource(orderEventService));
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber whose listener fails and ignore orders of other customers")
+    void shouldDropFailingSubscriber() {
+        // Given
+        when(orderRepository.findByCustomerIdAndStatusInOrderByCreateDateAsc("CUST001", OrderStatus.OPEN))
+                .thenReturn(List.of());
+        orderEventService.subscribe("CUST001", event -> {
+            throw new IllegalStateException("Connection closed");
+        });
+        runTasks();
+
+        // When
+        orderEventService.publish(openOrder);
+        orderEventService.publish(new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL, BigDecimal.ONE, new BigDecimal("150.00")));
+
+        // Then
+        assertTrue(tasks.isEmpty());
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.poll().run();
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package firm.brokerage.service;
 
+import firm.brokerage.dto.BatchOrderResult;
 import firm.brokerage.dto.CreateOrderRequest;
 import firm.brokerage.entity.OrderEntity;
 import firm.brokerage.entity.OrderSide;
 import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.exception.InsufficientFundsException;
 import firm.brokerage.exception.InvalidOrderStatusException;
 import firm.brokerage.exception.OrderNotFoundException;
+import firm.brokerage.journal.JournalCommandType;
+import firm.brokerage.journal.JournalEntry;
+import firm.brokerage.matching.OrderSequencer;
 import firm.brokerage.repository.OrderRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,10 +24,17 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,6 +46,18 @@ class OrderServiceTest {
     @Mock
     private AssetService assetService;
 
+    @Mock
+    private MatchingService matchingService;
+
+    @Mock
+    private OrderSequencer orderSequencer;
+
+    @Mock
+    private JournalService journalService;
+
+    @Mock
+    private OrderEventService orderEventService;
+
     @InjectMocks
     private OrderService orderService;
 
@@ -42,6 +66,10 @@ class OrderServiceTest {
 
     @BeforeEach
     void setUp() {
+        // Run sequenced commands inline on the test thread
+        lenient().when(orderSequencer.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
         createOrderRequest = new CreateOrderRequest(
                 "CUST001", "AAPL", OrderSide.BUY,
                 new BigDecimal("10.00"), new BigDecimal("150.00")
@@ -76,7 +104,57 @@ class OrderServiceTest {
                 createOrderRequest.getSize(),
                 createOrderRequest.getPrice()
         );
+        verify(matchingService).submitOrder(any(OrderEntity.class));
         verify(orderRepository).save(any(OrderEntity.class));
+        verify(orderEventService).publish(orderEntity);
+    }
+
+    @Test
+    @DisplayName("Should create order on the sequencer of its asset")
+    void shouldCreateOrderOnSequencerOfItsAsset() {
+        // Given
+        when(orderRepository.save(any(OrderEntity.class))).thenReturn(orderEntity);
+
+        // When
+        orderService.createOrder(createOrderRequest);
+
+        // Then
+        verify(orderSequencer).execute(eq("AAPL"), any());
+    }
+
+    @Test
+    @DisplayName("Should journal created order and wait until it is on disk")
+    void shouldJournalCreatedOrder() {
+        // Given
+        when(orderRepository.save(any(OrderEntity.class))).thenReturn(orderEntity);
+
+        // When
+        orderService.createOrder(createOrderRequest);
+
+        // Then
+        verify(journalService).record(argThat(entry ->
+                entry.getType() == JournalCommandType.CREATE
+                        && entry.getOrderId().equals(orderEntity.getOrderId())));
+        verify(journalService).awaitDurable();
+    }
+
+    @Test
+    @DisplayName("Should replay journaled order with its original ID and checkpoint it")
+    void shouldReplayJournaledOrder() {
+        // Given
+        JournalEntry entry = new JournalEntry(7, JournalCommandType.CREATE, "ORDER001", "CUST001", "AAPL",
+                OrderSide.BUY, new BigDecimal("10.00"), new BigDecimal("150.00"), LocalDateTime.of(2024, 1, 1, 10, 0));
+
+        // When
+        orderService.replayCreate(entry);
+
+        // Then
+        verify(matchingService).submitOrder(argThat(order -> order.getOrderId().equals("ORDER001")));
+        verify(orderRepository).save(argThat(order ->
+                order.getOrderId().equals("ORDER001")
+                        && order.getCreateDate().equals(LocalDateTime.of(2024, 1, 1, 10, 0))));
+        verify(journalService).checkpoint("AAPL", 7);
+        verify(journalService, never()).record(any());
     }
 
     @Test
@@ -116,6 +194,25 @@ class OrderServiceTest {
         verify(orderRepository).findByCustomerIdAndDateRange(customerId, startDate, endDate);
     }
 
+    @Test
+    @DisplayName("Should list partially filled orders among the pending orders")
+    void shouldListPartiallyFilledOrdersAsPending() {
+        // Given
+        OrderEntity partiallyFilled = new OrderEntity(
+                "CUST002", "AAPL", OrderSide.SELL, new BigDecimal("10.00"), new BigDecimal("150.00"));
+        partiallyFilled.fill(new BigDecimal("4.00"));
+        when(orderRepository.findByStatusInOrderByCreateDateAsc(OrderStatus.OPEN))
+                .thenReturn(List.of(orderEntity, partiallyFilled));
+
+        // When
+        List<OrderEntity> result = orderService.getAllPendingOrders();
+
+        // Then
+        assertEquals(List.of(orderEntity, partiallyFilled), result);
+        assertEquals(OrderStatus.PARTIALLY_FILLED, result.get(1).getStatus());
+        verify(orderRepository, never()).findByStatusOrderByCreateDateAsc(any());
+    }
+
     @Test
     @DisplayName("Should cancel order successfully")
     void shouldCancelOrderSuccessfully() {
@@ -126,6 +223,7 @@ class OrderServiceTest {
         when(orderRepository.findByOrderIdAndCustomerId(orderId, customerId))
                 .thenReturn(Optional.of(orderEntity));
         when(orderRepository.save(any(OrderEntity.class))).thenReturn(orderEntity);
+        when(matchingService.withdrawOrder(orderEntity)).thenReturn(true);
         doNothing().when(assetService).releaseAssetsForOrder(
                 any(String.class), any(String.class), any(OrderSide.class),
                 any(BigDecimal.class), any(BigDecimal.class)
@@ -144,6 +242,7 @@ class OrderServiceTest {
                 orderEntity.getPrice()
         );
         verify(orderRepository).save(orderEntity);
+        verify(orderEventService).publish(orderEntity);
     }
 
     @Test
@@ -186,4 +285,183 @@ class OrderServiceTest {
         assertTrue(exception.getMessage().contains(orderId));
         assertTrue(exception.getMessage().contains("cancel"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should not cancel order that was matched out of the book")
+    void shouldNotCancelOrderMatchedOutOfTheBook() {
+        // Given
+        String orderId = "ORDER001";
+        String customerId = "CUST001";
+
+        when(orderRepository.findByOrderIdAndCustomerId(orderId, customerId))
+                .thenReturn(Optional.of(orderEntity));
+        when(matchingService.withdrawOrder(orderEntity)).thenReturn(false);
+
+        // When & Then
+        assertThrows(
+                InvalidOrderStatusException.class,
+                () -> orderService.cancelOrder(orderId, customerId)
+        );
+
+        verify(assetService, never()).releaseAssetsForOrder(
+                any(String.class), any(String.class), any(OrderSide.class),
+                any(BigDecimal.class), any(BigDecimal.class)
+        );
+        verify(orderRepository, never()).save(any(OrderEntity.class));
+    }
+
+    @Test
+    @DisplayName("Should place batch in one insert and report rejected orders by index")
+    void shouldPlaceBatchAndReportRejectedOrders() {
+        // Given
+        submitInline();
+        CreateOrderRequest rejectedRequest = new CreateOrderRequest(
+                "CUST002", "AAPL", OrderSide.BUY, new BigDecimal("1000.00"), new BigDecimal("150.00"));
+        when(assetService.reserveAssetsForOrders(eq("CUST001"), eq("AAPL"), anyList())).thenReturn(Map.of());
+        when(assetService.reserveAssetsForOrders(eq("CUST002"), eq("AAPL"), anyList()))
+                .thenAnswer(invocation -> {
+                    List<OrderEntity> orders = invocation.getArgument(2);
+                    return Map.of(orders.get(0).getOrderId(), new InsufficientFundsException("CUST002", "TRY", "150000.00", "0.00"));
+                });
+        when(orderRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<String> orderIds = invocation.getArgument(0);
+            return orderIds.stream().map(orderId -> new OrderEntity(orderId, "CUST001", "AAPL", OrderSide.BUY,
+                    new BigDecimal("10.00"), new BigDecimal("150.00"), LocalDateTime.now())).toList();
+        });
+
+        // When
+        List<BatchOrderResult> results = orderService.createOrders(List.of(createOrderRequest, rejectedRequest));
+
+        // Then
+        assertEquals(2, results.size());
+        assertTrue(results.get(0).isAccepted());
+        assertEquals(0, results.get(0).getIndex());
+        assertFalse(results.get(1).isAccepted());
+        assertEquals(1, results.get(1).getIndex());
+        verify(matchingService).prepareOrderBook("AAPL");
+        verify(orderRepository).insertAll(argThat(orders -> orders.size() == 1));
+        verify(matchingService, times(1)).submitOrder(any(OrderEntity.class));
+        verify(journalService, times(1)).record(any());
+        verify(journalService).awaitDurable();
+    }
+
+    @Test
+    @DisplayName("Should reject every order of an asset group whose placement failed")
+    void shouldRejectWholeAssetGroupWhenPlacementFails() {
+        // Given
+        CreateOrderRequest otherAsset = new CreateOrderRequest(
+                "CUST001", "MSFT", OrderSide.BUY, new BigDecimal("1.00"), new BigDecimal("400.00"));
+        when(orderSequencer.submit(eq("AAPL"), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Order sequencer is stopped")));
+        when(orderSequencer.submit(eq("MSFT"), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(List.of(BatchOrderResult.rejected(1, "no funds"))));
+
+        // When
+        List<BatchOrderResult> results = orderService.createOrders(
+                List.of(createOrderRequest, otherAsset, createOrderRequest));
+
+        // Then
+        assertFalse(results.get(0).isAccepted());
+        assertEquals("Order sequencer is stopped", results.get(0).getError());
+        assertEquals("no funds", results.get(1).getError());
+        assertEquals("Order sequencer is stopped", results.get(2).getError());
+        verify(orderRepository, never()).insertAll(anyList());
+    }
+
+    // Runs batch groups inline on the test thread
+    private void submitInline() {
+        when(orderSequencer.submit(anyString(), any())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(invocation.<Supplier<?>>getArgument(1).get()));
+    }
+
+    @Test
+    @DisplayName("Should cancel all open orders of a customer per asset with one bulk update")
+    void shouldCancelAllOpenOrdersOfCustomer() {
+        // Given
+        OrderEntity otherAssetOrder = new OrderEntity(
+                "CUST001", "MSFT", OrderSide.SELL, new BigDecimal("1.00"), new BigDecimal("400.00"));
+        when(orderRepository.findByCustomerIdAndStatusInOrderByCreateDateAsc("CUST001", OrderStatus.OPEN))
+                .thenReturn(List.of(orderEntity, otherAssetOrder));
+        when(orderRepository.findByCustomerIdAndAssetNameAndStatusInOrderByCreateDateAsc("CUST001", "AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(orderEntity));
+        when(orderRepository.findByCustomerIdAndAssetNameAndStatusInOrderByCreateDateAsc("CUST001", "MSFT", OrderStatus.OPEN))
+                .thenReturn(List.of(otherAssetOrder));
+        when(matchingService.withdrawOrder(any(OrderEntity.class))).thenReturn(true);
+
+        // When
+        List<String> canceledOrderIds = orderService.cancelOrders("CUST001", null);
+
+        // Then
+        assertEquals(List.of(orderEntity.getOrderId(), otherAssetOrder.getOrderId()), canceledOrderIds);
+        verify(assetService).releaseAssetsForOrders("CUST001", "AAPL", List.of(orderEntity));
+        verify(assetService).releaseAssetsForOrders("CUST001", "MSFT", List.of(otherAssetOrder));
+        verify(orderRepository).updateStatus(List.of(orderEntity.getOrderId()), OrderStatus.OPEN, OrderStatus.CANCELED);
+        verify(orderRepository, never()).save(any(OrderEntity.class));
+        assertEquals(OrderStatus.CANCELED, orderEntity.getStatus());
+        verify(orderEventService).publish(orderEntity);
+        verify(orderEventService).publish(otherAssetOrder);
+        verify(journalService, times(2)).recordAll(argThat(entries -> entries.size() == 1
+                && entries.get(0).getType() == JournalCommandType.CANCEL));
+        verify(journalService).awaitDurable();
+    }
+
+    @Test
+    @DisplayName("Should skip orders already matched out of the book when canceling by asset")
+    void shouldSkipMatchedOrdersWhenCancelingByAsset() {
+        // Given
+        OrderEntity matchedOut = new OrderEntity(
+                "CUST001", "AAPL", OrderSide.BUY, new BigDecimal("5.00"), new BigDecimal("150.00"));
+        when(orderRepository.findByCustomerIdAndAssetNameAndStatusInOrderByCreateDateAsc("CUST001", "AAPL", OrderStatus.OPEN))
+                .thenReturn(List.of(orderEntity, matchedOut));
+        when(matchingService.withdrawOrder(orderEntity)).thenReturn(true);
+        when(matchingService.withdrawOrder(matchedOut)).thenReturn(false);
+
+        // When
+        List<String> canceledOrderIds = orderService.cancelOrders("CUST001", "AAPL");
+
+        // Then
+        assertEquals(List.of(orderEntity.getOrderId()), canceledOrderIds);
+        verify(orderRepository, never()).findByCustomerIdAndStatusInOrderByCreateDateAsc(anyString(), any());
+        verify(assetService).releaseAssetsForOrders("CUST001", "AAPL", List.of(orderEntity));
+    }
+
+    @Test
+    @DisplayName("Should return a cursor that resumes after the last order of the page")
+    void shouldPageOrderHistoryWithCursor() {
+        // Given
+        LocalDateTime base = LocalDateTime.of(2025, 1, 6, 10, 0);
+        OrderEntity newest = new OrderEntity("ORD003", "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00"), base.plusMinutes(3));
+        OrderEntity middle = new OrderEntity("ORD002", "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00"), base.plusMinutes(2));
+        OrderEntity oldest = new OrderEntity("ORD001", "CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("1.00"), new BigDecimal("100.00"), base.plusMinutes(1));
+        when(orderRepository.findPage("CUST001", null, "AAPL", null, null, 3))
+                .thenReturn(List.of(newest, middle, oldest));
+        when(orderRepository.findPage("CUST001", null, "AAPL", base.plusMinutes(2), "ORD002", 3))
+                .thenReturn(List.of(oldest));
+
+        // When
+        OrderPage firstPage = orderService.listOrders("CUST001", null, "AAPL", null, 2);
+        OrderPage secondPage = orderService.listOrders("CUST001", null, "AAPL", firstPage.getNextCursor(), 2);
+
+        // Then
+        assertEquals(List.of(newest, middle), firstPage.getOrders());
+        assertNotNull(firstPage.getNextCursor());
+        assertEquals(List.of(oldest), secondPage.getOrders());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor and an out of range page size")
+    void shouldRejectInvalidPageRequest() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.listOrders("CUST001", null, null, "not-a-cursor", 50));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.listOrders("CUST001", null, null, null, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> orderService.listOrders("CUST001", null, null, null, OrderService.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(orderRepository);
+    }
+}
@@ -0,0 +1,91 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.AssetEntity;
+import firm.brokerage.entity.OrderEntity;
+import firm.brokerage.entity.OrderSide;
+import firm.brokerage.entity.OrderStatus;
+import firm.brokerage.journal.BookSnapshot;
+import firm.brokerage.journal.CommandJournal;
+import firm.brokerage.journal.SnapshotStore;
+import firm.brokerage.matching.OrderSequencer;
+import firm.brokerage.repository.AssetRepository;
+import firm.brokerage.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotServiceTest {
+
+    @Mock
+    private OrderSequencer orderSequencer;
+
+    @Mock
+    private CommandJournal commandJournal;
+
+    @Mock
+    private SnapshotStore snapshotStore;
+
+    @Mock
+    private AssetRepository assetRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @InjectMocks
+    private SnapshotService snapshotService;
+
+    private AssetEntity tryBalance;
+    private OrderEntity openOrder;
+
+    @BeforeEach
+    void setUp() {
+        tryBalance = new AssetEntity("CUST001", "TRY", new BigDecimal("10000.00"), new BigDecimal("8500.00"));
+        openOrder = new OrderEntity("CUST001", "AAPL", OrderSide.BUY,
+                new BigDecimal("10.00"), new BigDecimal("150.00"));
+    }
+
+    @Test
+    @DisplayName("Should capture books and balances while the sequencer is paused")
+    void shouldCaptureStateWhileSequencerIsPaused() {
+        // Given
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(orderSequencer).runExclusive(any());
+        when(commandJournal.getLastSequence()).thenReturn(42L);
+        when(assetRepository.findAll()).thenReturn(List.of(tryBalance));
+        when(orderRepository.findByStatusInOrderByCreateDateAsc(OrderStatus.OPEN)).thenReturn(List.of(openOrder));
+
+        // When
+        BookSnapshot snapshot = snapshotService.takeSnapshot();
+
+        // Then
+        assertEquals(42, snapshot.getSequence());
+        assertEquals(List.of(tryBalance), snapshot.getBalances());
+        assertEquals(List.of(openOrder), snapshot.getOpenOrders());
+        verify(snapshotStore).save(snapshot);
+        verify(commandJournal).deleteSegmentsBefore(42);
+    }
+
+    @Test
+    @DisplayName("Should skip scheduled snapshot until recovery is done")
+    void shouldSkipScheduledSnapshotUntilRecovered() {
+        // When
+        snapshotService.takeScheduledSnapshot();
+
+        // Then
+        verifyNoInteractions(orderSequencer, snapshotStore);
+    }
+}
@@ -0,0 +1,87 @@
+package firm.brokerage.service;
+
+import firm.brokerage.entity.TradeEntity;
+import firm.brokerage.repository.TradeRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TradeServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 6, 0, 0);
+    private static final LocalDateTime END = START.plusDays(1);
+
+    @Mock
+    private TradeRepository tradeRepository;
+
+    @InjectMocks
+    private TradeService tradeService;
+
+    @Test
+    @DisplayName("Should write all trades of a command in one batch and skip empty ones")
+    void shouldRecordTradesInOneBatch() {
+        // Given
+        List<TradeEntity> trades = List.of(
+                new TradeEntity("AAPL", "BUY001", "SELL001", new BigDecimal("150.00"), new BigDecimal("1.00")),
+                new TradeEntity("AAPL", "BUY001", "SELL002", new BigDecimal("151.00"), new BigDecimal("2.00")));
+
+        // When
+        tradeService.recordTrades(trades);
+        tradeService.recordTrades(List.of());
+
+        // Then
+        verify(tradeRepository, times(1)).insertAll(anyList());
+        verify(tradeRepository).insertAll(trades);
+    }
+
+    @Test
+    @DisplayName("Should return a cursor that resumes after the last trade of the page")
+    void shouldPageTradesWithCursor() {
+        // Given
+        TradeEntity first = trade(1L, START.plusMinutes(1));
+        TradeEntity second = trade(2L, START.plusMinutes(2));
+        TradeEntity third = trade(3L, START.plusMinutes(3));
+        when(tradeRepository.findPage("AAPL", START, -1, END, Limit.of(3))).thenReturn(List.of(first, second, third));
+        when(tradeRepository.findPage("AAPL", START.plusMinutes(2), 2L, END, Limit.of(3))).thenReturn(List.of(third));
+
+        // When
+        TradePage firstPage = tradeService.listTrades("AAPL", START, END, null, 2);
+        TradePage secondPage = tradeService.listTrades("AAPL", START, END, firstPage.getNextCursor(), 2);
+
+        // Then
+        assertEquals(List.of(first, second), firstPage.getTrades());
+        assertNotNull(firstPage.getNextCursor());
+        assertEquals(List.of(third), secondPage.getTrades());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor, an empty time range and an out of range page size")
+    void shouldRejectInvalidPageRequest() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> tradeService.listTrades("AAPL", START, END, "not-a-cursor", 50));
+        assertThrows(IllegalArgumentException.class,
+                () -> tradeService.listTrades("AAPL", END, START, null, 50));
+        assertThrows(IllegalArgumentException.class,
+                () -> tradeService.listTrades("AAPL", START, END, null, TradeService.MAX_PAGE_SIZE + 1));
+        verifyNoInteractions(tradeRepository);
+    }
+
+    private static TradeEntity trade(long tradeId, LocalDateTime tradeDate) {
+        return new TradeEntity(tradeId, "AAPL", "BUY" + tradeId, "SELL" + tradeId,
+                new BigDecimal("100.00"), new BigDecimal("1.00"), tradeDate);
+    }
+}